@@ -0,0 +1,187 @@
+package com.billsdesk.github.keyreporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.KeyStroke;
+
+/**
+ * Assertions about the key strokes registered in a KeyReporter for regression tests. Nothing is
+ * displayed so they run headless in any test framework, a failure throws AssertionError. Checks use
+ * the reporter's key stroke index so each assertBound() is a single lookup.
+ * <p>
+ * <b>Example</b>
+ * </p>
+ * <pre>{@code
+ *      KeyAssertions.of(new KeyReporter().registerJFrame(frame))
+ *          .assertNoConflicts(JMenuItem.class)
+ *          .assertBound(KeyStroke.getKeyStroke("meta pressed S"), "Save")
+ *          .assertUnchanged(new File("keys.snapshot"));
+ * }</pre>
+ * A baseline snapshot is created with {@link KeyReporter#reportSnapshot(File)}.
+ */
+public class KeyAssertions {
+
+    /** Differences listed in a failure message before the rest are counted. */
+    private static final int MAX_LISTED = 20;
+
+    private final KeyReporter mReporter;
+
+    /**
+     * @param reporter
+     *            reporter with the components already registered
+     * @return assertions for the reporter
+     */
+    public static KeyAssertions of(final KeyReporter reporter) {
+        return new KeyAssertions(reporter);
+    }
+
+    private KeyAssertions(final KeyReporter reporter) {
+        mReporter = reporter;
+    }
+
+    /**
+     * Assert no key stroke is used twice.
+     *
+     * @return this
+     * @throws AssertionError
+     *             lists the key strokes used more than once
+     */
+    public KeyAssertions assertNoConflicts() throws AssertionError {
+        return assertNoConflicts(Object.class);
+    }
+
+    /**
+     * Assert no key stroke is used twice by components of a class, for example JMenuItem.class for
+     * menu accelerators.
+     *
+     * @param scope
+     *            class of the components to check, subclasses included
+     * @return this
+     * @throws AssertionError
+     *             lists the key strokes used more than once
+     */
+    public KeyAssertions assertNoConflicts(final Class< ? > scope) throws AssertionError {
+        final List<String> conflicts = mReporter.findConflicts(scope);
+        if (!conflicts.isEmpty()) {
+            fail(conflicts.size() + " conflicts in " + scope.getSimpleName(), conflicts);
+        }
+        return this;
+    }
+
+    /**
+     * Assert a key stroke is bound to an action.
+     *
+     * @param keyStroke
+     *            key stroke
+     * @param action
+     *            menu text or action map key
+     * @return this
+     * @throws AssertionError
+     *             not bound to the action
+     */
+    public KeyAssertions assertBound(final KeyStroke keyStroke, final String action)
+            throws AssertionError {
+        if (!mReporter.isBound(keyStroke, action)) {
+            throw new AssertionError(keyStroke + " expected " + action + " but was "
+                                     + mReporter.getActions(keyStroke));
+        }
+        return this;
+    }
+
+    /**
+     * Assert a key stroke is not bound to anything.
+     *
+     * @param keyStroke
+     *            key stroke
+     * @return this
+     * @throws AssertionError
+     *             key stroke is bound
+     */
+    public KeyAssertions assertNotBound(final KeyStroke keyStroke) throws AssertionError {
+        final List<String> actions = mReporter.getActions(keyStroke);
+        if (!actions.isEmpty()) {
+            throw new AssertionError(keyStroke + " expected unbound but was " + actions);
+        }
+        return this;
+    }
+
+    /**
+     * Assert no entry uses a key stroke forbidden or reserved by a policy.
+     *
+     * @param policy
+     *            policy such as KeyPolicy.getDefault()
+     * @return this
+     * @throws AssertionError
+     *             lists the entries that break the policy
+     */
+    public KeyAssertions assertPolicy(final KeyPolicy policy) throws AssertionError {
+        final List<String> violations = mReporter.getPolicyViolations(policy);
+        if (!violations.isEmpty()) {
+            fail(violations.size() + " policy violations", violations);
+        }
+        return this;
+    }
+
+    /**
+     * Assert the registered entries are the same as a snapshot, ignoring order.
+     *
+     * @param baseline
+     *            file written by KeyReporter.reportSnapshot()
+     * @return this
+     * @throws AssertionError
+     *             lists entries added (+) and removed (-) since the baseline
+     * @throws IllegalArgumentException
+     *             baseline can not be read
+     */
+    public KeyAssertions assertUnchanged(final File baseline)
+            throws AssertionError, IllegalArgumentException {
+        final List<String> expected;
+        try {
+            expected = Files.readAllLines(baseline.toPath(), StandardCharsets.UTF_8);
+        } catch (final IOException error) {
+            throw new IllegalArgumentException(error);
+        }
+        if (!expected.isEmpty() && expected.get(0).equals(KeyReportMerger.SNAPSHOT_HEADER)) {
+            expected.remove(0);
+        }
+
+        // count each line, + for current and - for baseline, anything not 0 changed
+        final Map<String, Integer> counts = new HashMap<>();
+        mReporter.getSnapshotLines().forEach(line -> counts.merge(line, 1, Integer::sum));
+        expected.stream()
+                .filter(line -> !line.isBlank())
+                .forEach(line -> counts.merge(line, -1, Integer::sum));
+        final List<String> changes = new ArrayList<>();
+        counts.forEach((line, count) -> {
+            for (int i = 0; i < Math.abs(count); i++) {
+                changes.add((count > 0 ? "+ " : "- ") + line);
+            }
+        });
+        if (!changes.isEmpty()) {
+            changes.sort(null);
+            fail(changes.size() + " changes since " + baseline.getName(), changes);
+        }
+        return this;
+    }
+
+    private static void fail(final String title, final List<String> lines) throws AssertionError {
+        final StringBuilder message = new StringBuilder(title);
+        lines.stream()
+             .limit(MAX_LISTED)
+             .forEach(line -> message.append(System.lineSeparator()).append("    ").append(line));
+        if (lines.size() > MAX_LISTED) {
+            message.append(System.lineSeparator())
+                   .append("    ... ")
+                   .append(lines.size() - MAX_LISTED)
+                   .append(" more");
+        }
+        throw new AssertionError(message.toString());
+    }
+}
@@ -0,0 +1,341 @@
+package com.billsdesk.github.keyreporter;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.KeyStroke;
+
+/**
+ * Key strokes reserved by or forbidden on an operating system, for example Cmd+Q on MacOS or
+ * Alt+F4 on Windows. Rules are read from a text file, only those for the platform are kept, and
+ * they are compiled into a table of packed key strokes so checking every registered entry is one
+ * lookup each.
+ * <p>
+ * <b>File format</b>, one rule per line, # starts a comment:
+ * </p>
+ * <pre>{@code
+ *      level platforms modifiers key : description
+ *
+ *      forbidden windows        ctrl alt DELETE : Security screen
+ *      reserved  mac            meta shift? TAB : Application switcher
+ *      reserved  all            * KANJI         : Input method
+ * }</pre>
+ * <ul>
+ * <li>level is reserved or forbidden</li>
+ * <li>platforms is all or a comma separated list of mac, windows, and linux</li>
+ * <li>modifiers are shift, ctrl, meta, alt, and altGraph, a trailing ? makes one optional and *
+ * allows any modifiers</li>
+ * <li>key is a KeyEvent VK_ name without the VK_ prefix, as used by
+ * KeyStroke.getKeyStroke(String)</li>
+ * </ul>
+ * <b>Example</b>
+ * <pre>{@code
+ *      KeyReporter.getInstance()
+ *          .registerJFrame(frame)
+ *          .setPolicy(KeyPolicy.getDefault())
+ *          .getPolicyViolations();
+ * }</pre>
+ */
+public class KeyPolicy {
+
+    private static final String STR_FORBIDDEN = //
+            KeyReporter.getProperty("KeyReporter.forbidden", "Forbidden");
+    private static final String STR_RESERVED  = //
+            KeyReporter.getProperty("KeyReporter.reserved", "Reserved");
+
+    private static final List<String> MODIFIER_NAMES = //
+            Arrays.asList("shift", "ctrl", "meta", "alt", "altGraph");
+    private static final int[]        MODIFIER_MASKS = {
+                                                        InputEvent.SHIFT_DOWN_MASK,
+                                                        InputEvent.CTRL_DOWN_MASK,
+                                                        InputEvent.META_DOWN_MASK,
+                                                        InputEvent.ALT_DOWN_MASK,
+                                                        InputEvent.ALT_GRAPH_DOWN_MASK
+    };
+
+    private final List<Rule>     mRules;
+    private final PackedKeyTable mTable;
+
+    /**
+     * How serious it is to use a key stroke.
+     */
+    public enum Level {
+
+        /** Forbidden first so it wins when both match. */
+        FORBIDDEN(STR_FORBIDDEN), //
+        RESERVED(STR_RESERVED);
+
+        private final String mTitle;
+
+        private Level(final String title) {
+            mTitle = title;
+        }
+
+        public String getTitle() {
+            return mTitle;
+        }
+    }
+
+    /**
+     * One line of a policy file.
+     */
+    public static class Rule {
+
+        private final Level  mLevel;
+        private final String mKeyStroke;
+        private final String mDescription;
+
+        Rule(final Level level, final String keyStroke, final String description) {
+            mLevel = level;
+            mKeyStroke = keyStroke;
+            mDescription = description;
+        }
+
+        public Level getLevel() {
+            return mLevel;
+        }
+
+        /**
+         * @return key stroke pattern as written in the file
+         */
+        public String getKeyStroke() {
+            return mKeyStroke;
+        }
+
+        public String getDescription() {
+            return mDescription;
+        }
+
+        @Override
+        public String toString() {
+            return mDescription.isEmpty() ? mLevel.getTitle()
+                                          : mLevel.getTitle() + ": " + mDescription;
+        }
+    }
+
+    /**
+     * The policy file included with KeyReporter for the current platform.
+     *
+     * @return policy
+     */
+    public static KeyPolicy getDefault() {
+        return load(KeyPolicy.class, "reserved.policy", getPlatform());
+    }
+
+    /**
+     * Load rules for the current platform.
+     *
+     * @param file
+     *            policy file
+     * @return policy
+     * @throws IllegalArgumentException
+     *             line can not be parsed or any IOException
+     */
+    public static KeyPolicy load(final File file) throws IllegalArgumentException {
+        return load(file, getPlatform());
+    }
+
+    /**
+     * Load rules for a platform.
+     *
+     * @param file
+     *            policy file
+     * @param platform
+     *            mac, windows, or linux
+     * @return policy
+     * @throws IllegalArgumentException
+     *             line can not be parsed or any IOException
+     */
+    public static KeyPolicy load(final File file, final String platform)
+            throws IllegalArgumentException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return new KeyPolicy(parse(reader, file.getAbsolutePath(), platform));
+        } catch (final IOException error) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Load rules from a resource.
+     *
+     * @param aClass
+     *            Class for the anchor of the location
+     * @param name
+     *            name of the resource, may include relative path
+     * @param platform
+     *            mac, windows, or linux
+     * @return policy
+     * @throws IllegalArgumentException
+     *             not found, line can not be parsed, or any IOException
+     */
+    public static KeyPolicy load(final Class< ? > aClass, final String name, final String platform)
+            throws IllegalArgumentException {
+        final InputStream stream = aClass.getResourceAsStream(name);
+        if (stream == null) {
+            throw new IllegalArgumentException(name);
+        }
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return new KeyPolicy(parse(reader, name, platform));
+        } catch (final IOException error) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * @return mac, windows, or linux for the running system
+     */
+    public static String getPlatform() {
+        final String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        if (os.startsWith("mac")) {
+            return "mac";
+        }
+        return os.startsWith("windows") ? "windows" : "linux";
+    }
+
+    private KeyPolicy(final List<CompiledRule> compiled) {
+        compiled.sort(Comparator.comparing(c -> c.mRule.getLevel()));
+        final List<Rule> rules = new ArrayList<>();
+        mTable = new PackedKeyTable(compiled.stream().mapToInt(c -> c.mKeys.length).sum());
+        for (final CompiledRule rule : compiled) {
+            for (final long key : rule.mKeys) {
+                mTable.putIfAbsent(key, rules.size());
+            }
+            rules.add(rule.mRule);
+        }
+        mRules = Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * @return rules for the platform, forbidden first
+     */
+    public List<Rule> getRules() {
+        return mRules;
+    }
+
+    /**
+     * Find the rule for a key stroke.
+     *
+     * @param keyStroke
+     *            key stroke
+     * @return rule or null if the key stroke may be used
+     */
+    public Rule match(final KeyStroke keyStroke) {
+        final int slot = mTable.get(PackedKeyTable.pack(keyStroke));
+        return slot == PackedKeyTable.NOT_FOUND ? null : mRules.get(slot);
+    }
+
+    private static List<CompiledRule> parse(final Reader reader,
+                                            final String name,
+                                            final String platform) throws IOException {
+        final List<CompiledRule> result = new ArrayList<>();
+        final BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            final int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            final String location = name + ":" + lineNumber + " ";
+            String description = "";
+            final int colon = line.indexOf(':');
+            if (colon >= 0) {
+                description = line.substring(colon + 1).trim();
+                line = line.substring(0, colon);
+            }
+            final List<String> tokens = Arrays.asList(line.trim().split("\\s+"));
+            if (tokens.size() < 3) {
+                throw new IllegalArgumentException(location + "expected level platforms key");
+            }
+            final Level level;
+            try {
+                level = Level.valueOf(tokens.get(0).toUpperCase(Locale.ROOT));
+            } catch (final IllegalArgumentException error) {
+                throw new IllegalArgumentException(location + "unknown level " + tokens.get(0));
+            }
+            final List<String> platforms = Arrays.asList(tokens.get(1).split(","));
+            if (platforms.contains("all") || platforms.contains(platform)) {
+                final String pattern = String.join(" ", tokens.subList(2, tokens.size()));
+                result.add(new CompiledRule(new Rule(level, pattern, description),
+                                            compile(tokens.subList(2, tokens.size()), location)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Expand optional and wildcard modifiers into every packed key stroke the pattern matches.
+     */
+    private static long[] compile(final List<String> tokens, final String location) {
+        int required = 0;
+        int optional = 0;
+        for (final String token : tokens.subList(0, tokens.size() - 1)) {
+            if (token.equals("*")) {
+                optional = InputEvent.SHIFT_DOWN_MASK
+                           | InputEvent.CTRL_DOWN_MASK
+                           | InputEvent.META_DOWN_MASK
+                           | InputEvent.ALT_DOWN_MASK
+                           | InputEvent.ALT_GRAPH_DOWN_MASK;
+                continue;
+            }
+            final boolean isOptional = token.endsWith("?");
+            final String modifier = isOptional ? token.substring(0, token.length() - 1) : token;
+            final int index = MODIFIER_NAMES.indexOf(modifier.equals("control") ? "ctrl"
+                                                                                 : modifier);
+            if (index < 0) {
+                throw new IllegalArgumentException(location + "unknown modifier " + token);
+            }
+            if (isOptional) {
+                optional |= MODIFIER_MASKS[index];
+            } else {
+                required |= MODIFIER_MASKS[index];
+            }
+        }
+        final String key = tokens.get(tokens.size() - 1);
+        final KeyStroke keyStroke = KeyStroke.getKeyStroke("pressed " + key);
+        if (keyStroke == null || keyStroke.getKeyCode() == KeyEvent.VK_UNDEFINED) {
+            throw new IllegalArgumentException(location + "unknown key " + key);
+        }
+
+        // every subset of the optional modifiers
+        final List<Long> keys = new ArrayList<>();
+        int subset = 0;
+        do {
+            keys.add(PackedKeyTable.pack(keyStroke.getKeyCode(),
+                                         KeyEvent.CHAR_UNDEFINED,
+                                         required | subset,
+                                         false));
+            subset = (subset - optional) & optional;
+        } while (subset != 0);
+        return keys.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static class CompiledRule {
+
+        private final Rule   mRule;
+        private final long[] mKeys;
+
+        CompiledRule(final Rule rule, final long[] keys) {
+            mRule = rule;
+            mKeys = keys;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.billsdesk.github.keyreporter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import javax.swing.KeyStroke;
+
+/**
+ * Merge many sorted reports, for example one from the application and one from each plugin, into
+ * a single tab delimited report marking duplicates across all of them. Inputs are snapshots written
+ * by {@link KeyReporter#reportSnapshot(File)} or tab delimited reports written by
+ * {@link KeyReporter#report(File)}, each already sorted by key code, modifiers, and action as all
+ * KeyReporter reports are.
+ * <p>
+ * The inputs are read together a row at a time (a k-way merge) so only the current row of each
+ * input and the rows sharing one key stroke are in memory, however large the combined report is.
+ * </p>
+ * <b>Example</b>
+ * <pre>{@code
+ *      new KeyReportMerger()
+ *          .add(new File("app.snapshot"))
+ *          .addAll(pluginSnapshots)
+ *          .merge(new File("all.txt"));
+ * }</pre>
+ * or from the command line: {@code java KeyReportMerger output input...}
+ */
+public class KeyReportMerger {
+
+    /** First line of a snapshot file. */
+    static final String SNAPSHOT_HEADER = "#KeyReporter snapshot 1";
+
+    private static final String STR_OTHER_SOURCES = //
+            KeyReporter.getProperty("KeyReporter.other_sources", "Other Sources");
+    private static final String STR_SOURCE        = //
+            KeyReporter.getProperty("KeyReporter.source", "Source");
+
+    private final List<File> mFiles = new ArrayList<>();
+    private long             mRowCount;
+    private long             mDuplicateCount;
+    private long             mCrossSourceCount;
+
+    /**
+     * Merge files from the command line.
+     *
+     * @param args
+     *            output file followed by the input files
+     */
+    public static void main(final String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: KeyReportMerger output input...");
+            System.exit(1);
+        }
+        final KeyReportMerger merger = new KeyReportMerger();
+        Arrays.asList(args).subList(1, args.length).forEach(name -> merger.add(new File(name)));
+        merger.merge(new File(args[0]));
+        System.out.println(String.format("%d rows, %d duplicates, %d shared by several sources",
+                                         merger.getRowCount(),
+                                         merger.getDuplicateCount(),
+                                         merger.getCrossSourceCount()));
+    }
+
+    /**
+     * Add a sorted snapshot or tab delimited report. The source name shown in the merged report is
+     * the file name without extension.
+     *
+     * @param file
+     *            file to merge
+     * @return this
+     */
+    public KeyReportMerger add(final File file) {
+        mFiles.add(file);
+        return this;
+    }
+
+    /**
+     * Add several files.
+     *
+     * @param files
+     *            files to merge
+     * @return this
+     */
+    public KeyReportMerger addAll(final Collection<File> files) {
+        mFiles.addAll(files);
+        return this;
+    }
+
+    /**
+     * Merge all added files into a tab delimited UTF-8 report with a title line.
+     *
+     * @param output
+     *            file to write
+     * @return this
+     * @throws IllegalArgumentException
+     *             an input is not sorted or can not be parsed, or any IOException
+     */
+    public KeyReportMerger merge(final File output) throws IllegalArgumentException {
+        mRowCount = 0;
+        mDuplicateCount = 0;
+        mCrossSourceCount = 0;
+        final List<Source> sources = new ArrayList<>();
+        try (BufferedWriter writer = Files.newBufferedWriter(output.toPath(),
+                                                             StandardCharsets.UTF_8)) {
+            for (final File file : mFiles) {
+                sources.add(new Source(file, sources.size()));
+            }
+            final PriorityQueue<Source> queue = new PriorityQueue<>(Math.max(1, sources.size()),
+                                                                    Source.ORDER);
+            for (final Source source : sources) {
+                if (source.current() != null) {
+                    queue.add(source);
+                }
+            }
+
+            final List<String> titles = new ArrayList<>();
+            titles.add(STR_SOURCE);
+            titles.addAll(KeyReporter.getReportColumnTitles());
+            titles.add(STR_OTHER_SOURCES);
+            writeLine(writer, titles);
+
+            final List<Row> group = new ArrayList<>();
+            while (!queue.isEmpty()) {
+                final Source source = queue.poll();
+                final Row row = source.current();
+                if (source.advance() != null) {
+                    queue.add(source);
+                }
+                if (!group.isEmpty() && !group.get(0).isSameGroup(row)) {
+                    flush(writer, group, sources);
+                }
+                if (row.isUnusedKeyStroke()) {
+                    writeRow(writer, row, "", "", sources);
+                } else {
+                    group.add(row);
+                }
+            }
+            flush(writer, group, sources);
+        } catch (final IOException error) {
+            throw new IllegalArgumentException(error);
+        } finally {
+            sources.forEach(Source::close);
+        }
+        return this;
+    }
+
+    /**
+     * @return rows written by the last merge
+     */
+    public long getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * @return rows marked as duplicates by the last merge
+     */
+    public long getDuplicateCount() {
+        return mDuplicateCount;
+    }
+
+    /**
+     * @return key strokes found in more than one source by the last merge
+     */
+    public long getCrossSourceCount() {
+        return mCrossSourceCount;
+    }
+
+    /**
+     * Write rows with the same key code and modifiers. Rows are only duplicates if the whole key
+     * stroke matches, typed and released strokes can share a group without being the same.
+     */
+    private void flush(final BufferedWriter writer,
+                       final List<Row> group,
+                       final List<Source> sources) throws IOException {
+        final Map<Long, List<Row>> byKeyStroke = new HashMap<>();
+        for (final Row row : group) {
+            byKeyStroke.computeIfAbsent(row.mPacked, k -> new ArrayList<>()).add(row);
+        }
+        for (final List<Row> same : byKeyStroke.values()) {
+            if (same.stream().mapToInt(r -> r.mSource).distinct().count() > 1) {
+                mCrossSourceCount++;
+            }
+        }
+        for (final Row row : group) {
+            final List<Row> same = byKeyStroke.get(row.mPacked);
+            final Set<String> others = new LinkedHashSet<>();
+            for (final Row other : same) {
+                if (other.mSource != row.mSource) {
+                    others.add(sources.get(other.mSource).getName());
+                }
+            }
+            final boolean dup = same.size() > 1;
+            if (dup) {
+                mDuplicateCount++;
+            }
+            writeRow(writer, row, dup ? "✔" : " ", String.join(", ", others), sources);
+        }
+        group.clear();
+    }
+
+    private void writeRow(final BufferedWriter writer,
+                          final Row row,
+                          final String dup,
+                          final String others,
+                          final List<Source> sources) throws IOException {
+        mRowCount++;
+        writeLine(writer,
+                  Arrays.asList(sources.get(row.mSource).getName(),
+                                simpleName(row.mClassName),
+                                dup,
+                                row.mKeyStrokeText,
+                                row.mDescription,
+                                row.mFocusType,
+                                others));
+    }
+
+    private static String simpleName(final String className) {
+        return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$'))
+                                   + 1);
+    }
+
+    private static void writeLine(final BufferedWriter writer, final List<String> fields)
+            throws IOException {
+        writer.write(String.join("\t", fields));
+        writer.write(System.lineSeparator());
+    }
+
+    /**
+     * One entry read from a snapshot or report.
+     */
+    static class Row {
+
+        /** Same order as the KeyReporter reports: key code, modifiers, and action. */
+        static final Comparator<Row> SORTED = //
+                Comparator.comparingInt((final Row r) -> r.mKeyStroke.getKeyCode())
+                          .thenComparingInt(r -> r.mKeyStroke.getModifiers())
+                          .thenComparing(r -> r.mDescription);
+
+        private final KeyStroke mKeyStroke;
+        private final long      mPacked;
+        private final String    mKeyStrokeText;
+        private final String    mClassName;
+        private final String    mDescription;
+        private final String    mFocusType;
+        private final int       mSource;
+
+        Row(final KeyStroke keyStroke,
+            final String keyStrokeText,
+            final String className,
+            final String description,
+            final String focusType,
+            final int source) {
+            mKeyStroke = keyStroke;
+            mPacked = PackedKeyTable.pack(keyStroke);
+            mKeyStrokeText = keyStrokeText;
+            mClassName = className;
+            mDescription = description;
+            mFocusType = focusType;
+            mSource = source;
+        }
+
+        public boolean isUnusedKeyStroke() {
+            return mKeyStroke.getKeyCode() == 0 && mKeyStroke.getModifiers() == 0;
+        }
+
+        private boolean isSameGroup(final Row row) {
+            return mKeyStroke.getKeyCode() == row.mKeyStroke.getKeyCode()
+                   && mKeyStroke.getModifiers() == row.mKeyStroke.getModifiers();
+        }
+    }
+
+    /**
+     * Reads one input a row at a time.
+     */
+    static class Source
+        implements
+            Closeable {
+
+        private static final Comparator<Source> ORDER = //
+                Comparator.comparing(Source::current, Row.SORTED)
+                          .thenComparingInt(s -> s.mIndex);
+
+        private final File           mFile;
+        private final String         mName;
+        private final int            mIndex;
+        private final BufferedReader mReader;
+        private boolean              mSnapshot;
+        private int                  mLineNumber;
+        private Row                  mCurrent;
+
+        /**
+         * Open a file and read the first row.
+         *
+         * @param file
+         *            snapshot or tab delimited report
+         * @param index
+         *            position in the list of sources, used to break ties
+         * @throws IOException
+         *             file can not be read
+         */
+        Source(final File file, final int index) throws IOException {
+            mFile = file;
+            final String name = file.getName();
+            mName = name.lastIndexOf('.') > 0 ? name.substring(0, name.lastIndexOf('.')) : name;
+            mIndex = index;
+            mReader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+            try {
+                advance();
+            } catch (final IOException | RuntimeException error) {
+                close(); // not yet in the list merge() closes
+                throw error;
+            }
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public Row current() {
+            return mCurrent;
+        }
+
+        /**
+         * Read the next row.
+         *
+         * @return the next row or null at the end
+         * @throws IOException
+         *             file can not be read
+         * @throws IllegalArgumentException
+         *             row can not be parsed or is out of order
+         */
+        public Row advance() throws IOException, IllegalArgumentException {
+            final Row previous = mCurrent;
+            mCurrent = null;
+            String line;
+            while ((line = mReader.readLine()) != null) {
+                mLineNumber++;
+                if (mLineNumber == 1) {
+                    line = line.replace("\uFEFF", ""); // BOM
+                    if (line.equals(SNAPSHOT_HEADER)) {
+                        mSnapshot = true;
+                        continue;
+                    }
+                }
+                if (!line.isBlank()) {
+                    mCurrent = mSnapshot ? parseSnapshot(line) : parseReport(line);
+                    break;
+                }
+            }
+            if (previous != null
+                && mCurrent != null
+                && Row.SORTED.compare(previous, mCurrent) > 0) {
+                throw error("is not sorted");
+            }
+            return mCurrent;
+        }
+
+        @Override
+        public void close() {
+            try {
+                mReader.close();
+            } catch (final IOException error) {
+                // ignore
+            }
+        }
+
+        private Row parseSnapshot(final String line) {
+            final String[] fields = line.split("\t", Integer.MAX_VALUE);
+            if (fields.length < 5) {
+                throw error("expected 5 fields");
+            }
+            try {
+                final KeyStroke keyStroke = PackedKeyTable.unpack(Long.parseLong(fields[0]));
+                return new Row(keyStroke,
+                               fields[1],
+                               fields[2],
+                               fields[3],
+                               fields[4],
+                               mIndex);
+            } catch (final NumberFormatException exception) {
+                throw error(exception.getMessage());
+            }
+        }
+
+        /**
+         * Parse a row of KeyReporter.report(File): class, dup, key stroke, action, and focus type.
+         * The key stroke text is read with KeyStroke.getKeyStroke(String) after undoing the MacOS
+         * symbols.
+         */
+        private Row parseReport(final String line) {
+            final String[] fields = line.split("\t", Integer.MAX_VALUE);
+            if (fields.length < 4) {
+                throw error("expected at least 4 fields");
+            }
+            final String text = fields[2].trim();
+            KeyStroke keyStroke = KeyStroke.getKeyStroke(0, 0);
+            if (!text.isEmpty()) {
+                String awt = text.replace("⌘ ", "meta ")
+                                 .replace("⌥ ", "alt ")
+                                 .replace("⌃ ", "ctrl ")
+                                 .replace("⇧ ", "shift ");
+                if (!awt.matches(".*\\b(pressed|released|typed) .*")) {
+                    final int last = awt.lastIndexOf(' ');
+                    awt = awt.substring(0, last + 1) + "pressed " + awt.substring(last + 1);
+                }
+                keyStroke = KeyStroke.getKeyStroke(awt);
+                if (keyStroke == null) {
+                    throw error("unknown key stroke " + text);
+                }
+            }
+            return new Row(keyStroke,
+                           text,
+                           fields[0],
+                           fields[3],
+                           fields.length > 4 ? fields[4] : "",
+                           mIndex);
+        }
+
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException(mFile.getAbsolutePath() + ":" + mLineNumber + " "
+                                                + message);
+        }
+    }
+}
@@ -6,20 +6,36 @@ import java.awt.Component;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import javax.swing.Action;
+import javax.swing.ActionMap;
 import javax.swing.InputMap;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
@@ -30,6 +46,9 @@ import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.KeyStroke;
 import javax.swing.SwingConstants;
+import javax.swing.UIDefaults;
+import javax.swing.UIManager;
+import javax.swing.plaf.UIResource;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
@@ -91,14 +110,29 @@ public class KeyReporter {
         }
     }
 
+    /**
+     * @param key
+     *            property name
+     * @param defaultValue
+     *            value if not in the properties file
+     * @return external string
+     */
+    static String getProperty(final String key, final String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
     private static final String STR_ACTION     =                               //
             properties.getProperty("KeyReporter.action", "Action");
+    private static final String STR_ACTION_CLASS =                             //
+            properties.getProperty("KeyReporter.action_class", "Action Class");
     private static final String STR_ANCESTOR   =                               //
             properties.getProperty("KeyReporter.ancestor", "Ancestor");
     private static final String STR_CLASS      =                               //
             properties.getProperty("KeyReporter.class", "Class");
     private static final String STR_DUP        =                               //
             properties.getProperty("KeyReporter.dup", "Dup");
+    private static final String STR_ENABLED    =                               //
+            properties.getProperty("KeyReporter.enabled", "Enabled");
     private static final String STR_FOCUS_TYPE =                               //
             properties.getProperty("KeyReporter.focus_type", "Focus Type");
     private static final String STR_FOCUSED    =                               //
@@ -107,19 +141,56 @@ public class KeyReporter {
             properties.getProperty("KeyReporter.in_focused", "In Focus");
     private static final String STR_KEYSTROKE  =                               //
             properties.getProperty("KeyReporter.keystroke", "Key Stroke");
+    private static final String STR_LAST_USED  =                               //
+            properties.getProperty("KeyReporter.last_used", "Last Used");
+    private static final String STR_ORPHANED   =                               //
+            properties.getProperty("KeyReporter.orphaned", "Orphaned");
+    private static final String STR_POLICY     =                               //
+            properties.getProperty("KeyReporter.policy", "Policy");
+    private static final String STR_SHADOWED   =                               //
+            properties.getProperty("KeyReporter.shadowed", "Shadowed when focused");
+    private static final String STR_STATUS     =                               //
+            properties.getProperty("KeyReporter.status", "Status");
+    private static final String STR_USES       =                               //
+            properties.getProperty("KeyReporter.uses", "Uses");
+
+    private static final DateTimeFormatter LAST_USED_FORMAT = //
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
 
     private static List<String> sColumnTitles  = Arrays.asList(STR_CLASS,
                                                                STR_DUP,
                                                                STR_KEYSTROKE,
                                                                STR_ACTION,
                                                                STR_FOCUS_TYPE);
+    private static List<String> sActionTitles  = Arrays.asList(STR_ACTION_CLASS,
+                                                               STR_ENABLED,
+                                                               STR_STATUS);
     private static KeyReporter  sInstance      = new KeyReporter();
 
     public static KeyReporter getInstance() {
         return sInstance;
     }
 
+    /**
+     * @return titles of the columns common to every report
+     */
+    static List<String> getReportColumnTitles() {
+        return sColumnTitles;
+    }
+
     private final List<AbstractKey> mEntries = new ArrayList<>();
+    /** Entries with a defined key stroke by key stroke, built when first needed. */
+    private Map<KeyStroke, List<AbstractKey>> mIndex;
+    private KeyUsageMonitor         mUsageMonitor;
+    private KeyPolicy               mPolicy;
+    private KeyScanCache            mScanCache;
+    /** Look and Feel ActionMaps, shared by many components, flattened once each. */
+    private final Map<ActionMap, Map<Object, Action>> mSharedActions = new IdentityHashMap<>();
+    /** ActionMaps in the Look and Feel defaults, from defaults of mDefaultsSize entries. */
+    private final Set<ActionMap>                      mDefaultActionMaps = //
+            Collections.newSetFromMap(new IdentityHashMap<>());
+    private UIDefaults                                mDefaults;
+    private int                                       mDefaultsSize;
 
     /**
      * Register all JCompoenents in JFrame.
@@ -187,22 +258,39 @@ public class KeyReporter {
 
     /**
      * Register all key strokes for WHEN_FOCUSED, WHEN_IN_FOCUSED_WINDOW, and
-     * WHEN_ANCESTOR_OF_FOCUSED_COMPONENT input maps.
+     * WHEN_ANCESTOR_OF_FOCUSED_COMPONENT input maps. With a scan cache only the component's own
+     * bindings are read, the Look and Feel bindings come from the cache. Each binding is resolved
+     * through the component's ActionMap and marked Shadowed when focused if an input map Swing
+     * checks first binds the same key stroke to an enabled action.
      *
      * @param component
      *            component to register
      * @return this
      */
     public KeyReporter registerComponent(final JComponent component) {
-        registerInputMap(component,
-                         component.getInputMap(JComponent.WHEN_FOCUSED),
-                         FocusType.WHEN_FOCUSED);
-        registerInputMap(component,
-                         component.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW),
-                         FocusType.WHEN_IN_FOCUSED_WINDOW);
-        registerInputMap(component,
-                         component.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT),
-                         FocusType.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT);
+        final ActionLookup actions = getActionLookup(component);
+        final List<InputMapEntry> entries = new ArrayList<>();
+        for (final FocusType type : FocusType.values()) {
+            final InputMap inputMap = component.getInputMap(type.getCondition());
+            if (mScanCache == null) {
+                entries.addAll(registerInputMap(component, inputMap, type, actions));
+            } else {
+                entries.addAll(registerCachedInputMap(component, inputMap, type, actions));
+            }
+        }
+        markShadowed(entries);
+        return this;
+    }
+
+    /**
+     * Use a cache of the shared Look and Feel bindings in registerComponent().
+     *
+     * @param cache
+     *            cache, null for none
+     * @return this
+     */
+    public KeyReporter setScanCache(final KeyScanCache cache) {
+        mScanCache = cache;
         return this;
     }
 
@@ -220,13 +308,163 @@ public class KeyReporter {
     public KeyReporter registerInputMap(final JComponent component,
                                         final InputMap inputMap,
                                         final FocusType type) {
+        registerInputMap(component, inputMap, type, getActionLookup(component));
+        return this;
+    }
+
+    private List<InputMapEntry> registerInputMap(final JComponent component,
+                                                 final InputMap inputMap,
+                                                 final FocusType type,
+                                                 final ActionLookup actions) {
+        final List<InputMapEntry> result = new ArrayList<>();
         final KeyStroke[] keyStrokes = inputMap.allKeys();
         if (keyStrokes != null) { // sometimes null with WHEN_ANCESTOR_OF_FOCUSED_COMPONENT
             Arrays.asList(keyStrokes).stream().forEach(key -> {
-                register(new InputMapEntry(component, key, inputMap.get(key), type));
+                final Object actionMapKey = inputMap.get(key);
+                result.add(new InputMapEntry(component,
+                                             key,
+                                             actionMapKey,
+                                             type,
+                                             actions.get(actionMapKey)));
             });
         }
-        return this;
+        result.forEach(this::register);
+        return result;
+    }
+
+    /**
+     * Register the bindings of the input map levels that belong to the component and then those of
+     * the shared Look and Feel input map from the scan cache that the component does not override.
+     */
+    private List<InputMapEntry> registerCachedInputMap(final JComponent component,
+                                                       final InputMap inputMap,
+                                                       final FocusType type,
+                                                       final ActionLookup actions) {
+        final List<InputMapEntry> result = new ArrayList<>();
+        final InputMap shared = mScanCache.findShared(inputMap);
+        final Set<KeyStroke> overrides = new HashSet<>();
+        for (InputMap level = inputMap; level != shared; level = level.getParent()) {
+            final KeyStroke[] own = level.keys();
+            if (own != null) {
+                overrides.addAll(Arrays.asList(own));
+            }
+        }
+        overrides.forEach(key -> {
+            final Object actionMapKey = inputMap.get(key);
+            result.add(new InputMapEntry(component,
+                                         key,
+                                         actionMapKey,
+                                         type,
+                                         actions.get(actionMapKey)));
+        });
+        if (shared != null) {
+            for (final KeyScanCache.Binding binding : mScanCache.getSharedBindings(shared)) {
+                final KeyStroke key = binding.getKeyStroke();
+                // the cache holds the key's text, only a lookup gives keys that are not Strings
+                final Object actionMapKey = overrides.contains(key) ? null : shared.get(key);
+                if (actionMapKey != null) { // null if overridden or removed since it was cached
+                    result.add(new InputMapEntry(component,
+                                                 key,
+                                                 actionMapKey,
+                                                 type,
+                                                 actions.get(actionMapKey)));
+                }
+            }
+        }
+        result.forEach(this::register);
+        return result;
+    }
+
+    /**
+     * Resolve action map keys for a component. The ActionMap parent chain is walked up to the first
+     * map from the Look and Feel defaults, such as TextField.actionMap, which is shared by every
+     * component using it so it is flattened once and remembered by identity. The levels below it
+     * belong to the component, for example the Keymap actions of a text component, and are read
+     * directly.
+     */
+    private ActionLookup getActionLookup(final JComponent component) {
+        final ActionMap actionMap = component.getActionMap();
+        final Set<Object> own = new HashSet<>();
+        for (ActionMap level = actionMap; level != null; level = level.getParent()) {
+            Map<Object, Action> shared = mSharedActions.get(level);
+            if (shared == null && level instanceof UIResource && isDefault(level)) {
+                shared = flatten(level);
+                mSharedActions.put(level, shared);
+            }
+            if (shared != null) {
+                return new ActionLookup(actionMap, own, shared);
+            }
+            final Object[] keys = level.keys();
+            if (keys != null) {
+                own.addAll(Arrays.asList(keys));
+            }
+        }
+        return new ActionLookup(actionMap, own, Map.of());
+    }
+
+    /**
+     * A UI puts its ActionMap in the Look and Feel defaults when the first component using it is
+     * created, so the set of default ActionMaps is read again only when the defaults changed.
+     */
+    private boolean isDefault(final ActionMap actionMap) {
+        if (mDefaultActionMaps.contains(actionMap)) {
+            return true;
+        }
+        final UIDefaults defaults = UIManager.getLookAndFeelDefaults();
+        if (defaults == mDefaults && defaults.size() == mDefaultsSize) {
+            return false;
+        }
+        mDefaults = defaults;
+        mDefaultsSize = defaults.size();
+        mDefaultActionMaps.clear();
+        for (final Object value : defaults.values()) {
+            if (value instanceof ActionMap) {
+                mDefaultActionMaps.add((ActionMap) value);
+            }
+        }
+        return mDefaultActionMaps.contains(actionMap);
+    }
+
+    /**
+     * @return number of shared ActionMaps flattened
+     */
+    int getSharedActionMapCount() {
+        return mSharedActions.size();
+    }
+
+    private static Map<Object, Action> flatten(final ActionMap actionMap) {
+        final Map<Object, Action> result = new HashMap<>();
+        final Object[] keys = actionMap.allKeys();
+        if (keys != null) {
+            for (final Object key : keys) {
+                result.put(key, actionMap.get(key));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * When a component has focus Swing looks for a binding in WHEN_FOCUSED, then
+     * WHEN_ANCESTOR_OF_FOCUSED_COMPONENT, then WHEN_IN_FOCUSED_WINDOW and stops at the first
+     * enabled action, so later bindings of the same key stroke in the component do not run. They
+     * are not dead: they still run while focus is in a child (WHEN_ANCESTOR_OF_FOCUSED_COMPONENT)
+     * or elsewhere in the window (WHEN_IN_FOCUSED_WINDOW).
+     */
+    private static void markShadowed(final List<InputMapEntry> entries) {
+        final Map<KeyStroke, InputMapEntry> first = new HashMap<>();
+        for (final InputMapEntry entry : entries) {
+            if (entry.isEnabled()) {
+                first.merge(entry.getKeyStroke(),
+                            entry,
+                            (a, b) -> a.mType.getPrecedence() <= b.mType.getPrecedence() ? a : b);
+            }
+        }
+        for (final InputMapEntry entry : entries) {
+            final InputMapEntry winner = first.get(entry.getKeyStroke());
+            if (winner != null && winner.mType.getPrecedence() < entry.mType.getPrecedence()) {
+                entry.setShadowed();
+            }
+        }
     }
 
     /**
@@ -240,7 +478,7 @@ public class KeyReporter {
         System.out.println(file.getAbsolutePath());
         final String string = mEntries.stream()
                                       .sorted(AbstractKey.SORTED)
-                                      .map(AbstractKey::toString)
+                                      .map(e -> String.join("\t", toRow(e)))
                                       .collect(Collectors.joining(System.lineSeparator()));
         try {
             if (file.exists()) {
@@ -254,6 +492,29 @@ public class KeyReporter {
         return this;
     }
 
+    /**
+     * Create a snapshot of the entries, a tab delimited UTF-8 file sorted like the reports that
+     * keeps the exact key stroke and full class name so it can be read back by
+     * {@link KeyReportMerger} to merge reports from many applications or plugins.
+     *
+     * @param file
+     *            file to write
+     * @return this
+     * @throws IllegalArgumentException
+     *             any IOException
+     */
+    public KeyReporter reportSnapshot(final File file) throws IllegalArgumentException {
+        final List<String> lines = new ArrayList<>();
+        lines.add(KeyReportMerger.SNAPSHOT_HEADER);
+        lines.addAll(getSnapshotLines());
+        try {
+            Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        } catch (final IOException error) {
+            throw new IllegalArgumentException(error);
+        }
+        return this;
+    }
+
     /**
      * Create the report as a .csv file encoded as UTF-8 in such a way that Microsoft Excel will
      * open it correctly without using the Import Wizard.
@@ -267,10 +528,38 @@ public class KeyReporter {
     public KeyReporter reportCsv(final File file) throws IllegalArgumentException {
         System.out.println(file.getAbsolutePath());
         final CsvFile csv = new CsvFile(file);
-        csv.addFields(sColumnTitles).writeRecord();
+        csv.addFields(getColumnTitles()).writeRecord();
         mEntries.stream()
                 .sorted(AbstractKey.SORTED)
-                .forEach(e -> csv.addFields(e.toCsv()).writeRecord());
+                .forEach(e -> csv.addFields(toRow(e)).writeRecord());
+        return this;
+    }
+
+    /**
+     * Create the report as an Excel .xlsx workbook with a frozen header row, an auto filter,
+     * column widths to fit the data, and duplicate key strokes highlighted. Rows are streamed into
+     * the file so memory used does not grow with the number of rows.
+     *
+     * @param file
+     *            file to write
+     * @return this
+     * @throws IllegalArgumentException
+     *             file is a directory or any IOEException thrown during the report generation
+     */
+    public KeyReporter reportXlsx(final File file) throws IllegalArgumentException {
+        final List<String> columns = getColumnTitles();
+        final int[] widths = new int[columns.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = columns.get(i).length();
+        }
+        mEntries.stream().sorted(AbstractKey.SORTED).map(this::toRow).forEach(row -> {
+            for (int i = 0; i < row.size() && i < widths.length; i++) {
+                widths[i] = Math.max(widths[i], row.get(i).length());
+            }
+        });
+        try (XlsxFile xlsx = new XlsxFile(file, columns, widths, sColumnTitles.indexOf(STR_DUP))) {
+            mEntries.stream().sorted(AbstractKey.SORTED).forEach(e -> xlsx.writeRow(toRow(e)));
+        }
         return this;
     }
 
@@ -294,7 +583,7 @@ public class KeyReporter {
      */
     public void reportTable(final Container panel) {
         panel.setLayout(new BorderLayout());
-        panel.add(new TablePanel(mEntries), BorderLayout.CENTER);
+        panel.add(new TablePanel(getColumnTitles(), getRows()), BorderLayout.CENTER);
     }
 
     /**
@@ -311,15 +600,155 @@ public class KeyReporter {
      * @return this
      */
     public TableFrame reportTable(final Dimension frameSize) {
-        final TableFrame table = new TableFrame(mEntries, frameSize);
+        final TableFrame table = new TableFrame(getColumnTitles(), getRows(), frameSize);
         return table;
     }
 
     public KeyReporter clear() {
+        stopMonitoringUsage();
+        mUsageMonitor = null;
         mEntries.clear();
+        mIndex = null;
+        mSharedActions.clear();
+        mDefaultActionMaps.clear();
+        mDefaults = null;
         return this;
     }
 
+    /**
+     * Start counting how often each registered key stroke is used. Reports then include Uses and
+     * Last Used columns. Only key strokes registered before this call are counted, call again after
+     * registering more to restart the counts.
+     *
+     * @return this
+     */
+    public KeyReporter monitorUsage() {
+        stopMonitoringUsage();
+        mUsageMonitor = new KeyUsageMonitor(mEntries.stream()
+                                                    .filter(AbstractKey::isDefinedKeyStroke)
+                                                    .map(AbstractKey::getKeyStroke)
+                                                    .collect(Collectors.toList())).install();
+        return this;
+    }
+
+    /**
+     * Stop counting key stroke usage. Counts so far remain in the reports until clear().
+     *
+     * @return this
+     */
+    public KeyReporter stopMonitoringUsage() {
+        if (mUsageMonitor != null) {
+            mUsageMonitor.uninstall();
+        }
+        return this;
+    }
+
+    /**
+     * Check every entry against reserved and forbidden key strokes. Reports then include a Policy
+     * column.
+     *
+     * @param policy
+     *            policy such as KeyPolicy.getDefault(), null to stop checking
+     * @return this
+     */
+    public KeyReporter setPolicy(final KeyPolicy policy) {
+        mPolicy = policy;
+        return this;
+    }
+
+    /**
+     * List entries that use a reserved or forbidden key stroke, for build time checks such as
+     * {@code assertTrue(list.isEmpty(), String.join("\n", list))}.
+     *
+     * @return one tab delimited line per violation: class, key stroke, action, and rule. Empty if
+     *         no policy.
+     */
+    public List<String> getPolicyViolations() {
+        return getPolicyViolations(mPolicy);
+    }
+
+    /**
+     * @param policy
+     *            policy to check, may be null
+     * @return same as getPolicyViolations() for a policy other than the one set.
+     */
+    List<String> getPolicyViolations(final KeyPolicy policy) {
+        final List<String> result = new ArrayList<>();
+        if (policy != null) {
+            for (final AbstractKey entry : mEntries) {
+                if (entry.isDefinedKeyStroke()) {
+                    final KeyPolicy.Rule rule = policy.match(entry.getKeyStroke());
+                    if (rule != null) {
+                        final List<String> fields = entry.toFields(this);
+                        result.add(String.join("\t",
+                                               fields.get(0),
+                                               fields.get(2),
+                                               fields.get(3),
+                                               rule.toString()));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return monitor started by monitorUsage() or null if none.
+     */
+    public KeyUsageMonitor getUsageMonitor() {
+        return mUsageMonitor;
+    }
+
+    private List<String> getColumnTitles() {
+        final List<String> result = new ArrayList<>(sColumnTitles);
+        result.addAll(sActionTitles);
+        if (mPolicy != null) {
+            result.add(STR_POLICY);
+        }
+        if (mUsageMonitor != null) {
+            result.add(STR_USES);
+            result.add(STR_LAST_USED);
+        }
+        return result;
+    }
+
+    /**
+     * Fields of one report row: the base columns padded for menus, the action columns, and then
+     * the Policy and usage columns when checking a policy or monitoring.
+     */
+    private List<String> toRow(final AbstractKey entry) {
+        final List<String> result = new ArrayList<>(entry.toFields(this));
+        while (result.size() < sColumnTitles.size()) {
+            result.add("");
+        }
+        result.addAll(entry.toActionFields());
+        if (mPolicy != null) {
+            final KeyPolicy.Rule rule = entry.isDefinedKeyStroke()
+                    ? mPolicy.match(entry.getKeyStroke())
+                    : null;
+            result.add(rule == null ? "" : rule.toString());
+        }
+        if (mUsageMonitor != null) {
+            if (entry.isDefinedKeyStroke()) {
+                final long lastUsed = mUsageMonitor.getLastUsed(entry.getKeyStroke());
+                result.add(Long.toString(mUsageMonitor.getCount(entry.getKeyStroke())));
+                result.add(lastUsed == 0 ? ""
+                                         : LAST_USED_FORMAT.format(Instant.ofEpochMilli(lastUsed)));
+            } else {
+                result.add("");
+                result.add("");
+            }
+        }
+        return result;
+    }
+
+    private List<List<String>> getRows() {
+        return mEntries.stream()
+                       .sorted(AbstractKey.SORTED)
+                       .map(this::toRow)
+                       .collect(Collectors.toList());
+    }
+
     private static List<Component> getAllComponents(final Container container) {
         final List<Component> result = new ArrayList<Component>();
         for (final Component component : container.getComponents()) {
@@ -331,33 +760,136 @@ public class KeyReporter {
         return result;
     }
 
+    /**
+     * Lines of a snapshot, without the header, sorted like the reports.
+     *
+     * @return one tab delimited line per entry
+     */
+    List<String> getSnapshotLines() {
+        return mEntries.stream()
+                       .sorted(AbstractKey.SORTED)
+                       .map(e -> e.toSnapshotFields()
+                                  .stream()
+                                  .map(f -> f.replaceAll("\\t|\\R", " "))
+                                  .collect(Collectors.joining("\t")))
+                       .collect(Collectors.toList());
+    }
+
+    /**
+     * @param keyStroke
+     *            key stroke
+     * @param action
+     *            menu text or action map key
+     * @return true if the key stroke is bound to the action
+     */
+    boolean isBound(final KeyStroke keyStroke, final String action) {
+        return getIndex().getOrDefault(keyStroke, List.of())
+                         .stream()
+                         .anyMatch(e -> action.equals(e.getDescription()));
+    }
+
+    /**
+     * @param keyStroke
+     *            key stroke
+     * @return actions (menu text or action map key) bound to the key stroke
+     */
+    List<String> getActions(final KeyStroke keyStroke) {
+        return getIndex().getOrDefault(keyStroke, List.of())
+                         .stream()
+                         .map(AbstractKey::getDescription)
+                         .collect(Collectors.toList());
+    }
+
+    /**
+     * Find key strokes used by more than one entry whose component is a scope.
+     *
+     * @param scope
+     *            class of the components to check, Object.class for all
+     * @return one line per key stroke: key stroke and the class and action of each use
+     */
+    List<String> findConflicts(final Class< ? > scope) {
+        final List<String> result = new ArrayList<>();
+        getIndex().forEach((keyStroke, entries) -> {
+            if (entries.size() > 1) {
+                final List<AbstractKey> inScope = //
+                        entries.stream()
+                               .filter(e -> scope.isAssignableFrom(e.getComponentClass()))
+                               .collect(Collectors.toList());
+                if (inScope.size() > 1) {
+                    result.add(keyStroke
+                               + ": "
+                               + inScope.stream()
+                                        .map(e -> e.getComponentClass().getSimpleName()
+                                                  + " "
+                                                  + e.getDescription())
+                                        .collect(Collectors.joining(", ")));
+                }
+            }
+        });
+        return result;
+    }
+
+    private Map<KeyStroke, List<AbstractKey>> getIndex() {
+        if (mIndex == null) {
+            mIndex = new HashMap<>();
+            mEntries.forEach(this::index);
+        }
+        return mIndex;
+    }
+
+    private void index(final AbstractKey info) {
+        if (info.isDefinedKeyStroke()) {
+            mIndex.computeIfAbsent(info.getKeyStroke(), k -> new ArrayList<>()).add(info);
+        }
+    }
+
     private boolean isDuplicate(final AbstractKey info) {
-        final Optional<AbstractKey> result = mEntries.stream()
-                                                     .filter(entry -> entry.isSameKeyStroke(info))
-                                                     .findFirst();
-        return result.isPresent();
+        final List<AbstractKey> same = getIndex().get(info.getKeyStroke());
+        return info.isDefinedKeyStroke()
+               && same != null
+               && (same.size() > 1 || same.get(0) != info);
     }
 
     private KeyReporter register(final AbstractKey info) throws IllegalArgumentException {
         mEntries.add(info);
+        if (mIndex != null) {
+            index(info);
+        }
         return this;
     }
 
     private enum FocusType {
 
-        WHEN_FOCUSED(STR_FOCUSED), //
-        WHEN_IN_FOCUSED_WINDOW(STR_IN_FOCUS), //
-        WHEN_ANCESTOR_OF_FOCUSED_COMPONENT(STR_ANCESTOR);
+        WHEN_FOCUSED(STR_FOCUSED, JComponent.WHEN_FOCUSED, 0), //
+        WHEN_IN_FOCUSED_WINDOW(STR_IN_FOCUS, JComponent.WHEN_IN_FOCUSED_WINDOW, 2), //
+        WHEN_ANCESTOR_OF_FOCUSED_COMPONENT(STR_ANCESTOR,
+                                           JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT,
+                                           1);
 
         private final String mTitle;
+        private final int    mCondition;
+        private final int    mPrecedence;
 
-        private FocusType(final String title) {
+        private FocusType(final String title, final int condition, final int precedence) {
             mTitle = title;
+            mCondition = condition;
+            mPrecedence = precedence;
+        }
+
+        /**
+         * @return order Swing checks the input maps, lowest first
+         */
+        public int getPrecedence() {
+            return mPrecedence;
         }
 
         public String getTitle() {
             return mTitle;
         }
+
+        public int getCondition() {
+            return mCondition;
+        }
     };
 
     private abstract static class AbstractKey {
@@ -374,6 +906,10 @@ public class KeyReporter {
             mDescription = description;
         }
 
+        public Class< ? > getComponentClass() {
+            return mComponentClass;
+        }
+
         public KeyStroke getKeyStroke() {
             return mKeyStroke;
         }
@@ -410,30 +946,60 @@ public class KeyReporter {
                    && mKeyStroke.equals(info.mKeyStroke);
         }
 
-        @Override
-        public String toString() {
+        /**
+         * @param reporter
+         *            reporter this entry is registered in, used to find duplicates
+         * @return fields for the report columns: class, dup, key stroke, and action.
+         */
+        public List<String> toFields(final KeyReporter reporter) {
             String dup;
             String keystroke;
             if (isUnusedKeyStroke()) {
                 dup = "";
                 keystroke = "";
             } else {
-                dup = KeyReporter.getInstance().isDuplicate(this) ? "✔" : " ";
+                dup = reporter.isDuplicate(this) ? "✔" : " ";
                 keystroke = keyStrokeString(mKeyStroke);
             }
-            return String.format("%s\t%s\t%s\t%s",
-                                 mComponentClass.getSimpleName(),
-                                 dup,
-                                 keystroke,
-                                 mDescription);
+            return new ArrayList<>(Arrays.asList(mComponentClass.getSimpleName(),
+                                                 dup,
+                                                 keystroke,
+                                                 mDescription));
         }
 
-        public List<String> toCsv() {
-            return Arrays.asList(toString().split("\t", Integer.MAX_VALUE));
+        @Override
+        public String toString() {
+            return String.join("\t", toFields(KeyReporter.getInstance()));
         }
 
-        public String[] toRow() {
-            return toString().split("\t", Integer.MAX_VALUE);
+        /**
+         * @return fields for the action columns: action class, enabled, and status.
+         */
+        public abstract List<String> toActionFields();
+
+        /**
+         * @param action
+         *            action or null
+         * @return class name without package, nested and anonymous classes keep their outer name
+         */
+        protected static String actionClassName(final Action action) {
+            if (action == null) {
+                return "";
+            }
+            final String name = action.getClass().getName();
+            return name.substring(name.lastIndexOf('.') + 1);
+        }
+
+        /**
+         * @return fields for a snapshot: packed key stroke, key stroke, class name, action, and
+         *         focus type title or empty for menus.
+         */
+        public List<String> toSnapshotFields() {
+            return new ArrayList<>(Arrays.asList(Long.toString(PackedKeyTable.pack(mKeyStroke)),
+                                                 isUnusedKeyStroke() ? "" : mKeyStroke.toString(),
+                                                 mComponentClass.getName(),
+                                                 String.valueOf(mDescription),
+                                                 ""));
         }
 
         /**
@@ -470,6 +1036,13 @@ public class KeyReporter {
             super(menuItem.getClass(), menuItem.getAccelerator(), menuItem.getText());
             mMenuItem = menuItem;
         }
+
+        @Override
+        public List<String> toActionFields() {
+            return Arrays.asList(actionClassName(mMenuItem.getAction()),
+                                 mMenuItem.isEnabled() ? "✔" : "",
+                                 "");
+        }
     }
 
     private static class InputMapEntry
@@ -477,18 +1050,53 @@ public class KeyReporter {
             AbstractKey {
 
         private final FocusType mType;
+        private final Action    mAction;
+        private boolean         mShadowed;
 
         public InputMapEntry(final JComponent component,
                              final KeyStroke keyStroke,
                              final Object actionMapKey,
-                             final FocusType type) {
+                             final FocusType type,
+                             final Action action) {
             super(component.getClass(), keyStroke, actionMapKey.toString());
             mType = type;
+            mAction = action;
+        }
+
+        /**
+         * @return true if the ActionMap has an enabled action for this binding
+         */
+        public boolean isEnabled() {
+            return mAction != null && mAction.isEnabled();
+        }
+
+        public void setShadowed() {
+            mShadowed = true;
         }
 
         @Override
-        public String toString() {
-            return String.format("%s\t%s", super.toString(), mType.getTitle());
+        public List<String> toActionFields() {
+            String status = "";
+            if (mAction == null) {
+                status = STR_ORPHANED;
+            } else if (mShadowed) {
+                status = STR_SHADOWED;
+            }
+            return Arrays.asList(actionClassName(mAction), isEnabled() ? "✔" : "", status);
+        }
+
+        @Override
+        public List<String> toFields(final KeyReporter reporter) {
+            final List<String> result = super.toFields(reporter);
+            result.add(mType.getTitle());
+            return result;
+        }
+
+        @Override
+        public List<String> toSnapshotFields() {
+            final List<String> result = super.toSnapshotFields();
+            result.set(result.size() - 1, mType.getTitle());
+            return result;
         }
     }
 
@@ -576,6 +1184,357 @@ public class KeyReporter {
         }
     }
 
+    /**
+     * Write a single sheet .xlsx (SpreadsheetML) file directly as zip entries so no spreadsheet
+     * library is needed. Rows are written as they are added. Repeated strings are put in the shared
+     * strings table, which is capped so memory stays bounded, then strings are written inline.
+     */
+    private static class XlsxFile
+        implements
+            AutoCloseable {
+
+        private static final String SHEET_NAME         = "Key Usage";
+        private static final int    MAX_SHARED_STRINGS = 10_000;
+        private static final int    MAX_COLUMN_WIDTH   = 80;
+
+        private final FileOutputStream     mOut;
+        private final ZipOutputStream      mZip;
+        private final Writer               mWriter;
+        private final int                  mColumnCount;
+        private final int                  mDupColumn;
+        private final Map<String, Integer> mSharedStrings  = new HashMap<>();
+        private final List<String>         mSharedOrder    = new ArrayList<>();
+        private int                        mSharedCount;
+        private int                        mRowCount;
+
+        /**
+         * Create a .xlsx file and write the header row.
+         *
+         * @param file
+         *            file to write
+         * @param columns
+         *            column titles
+         * @param widths
+         *            width of each column in characters
+         * @param dupColumn
+         *            column whose check mark highlights the row, -1 for none
+         * @throws IllegalArgumentException
+         *             file is a directory or any IOException
+         */
+        public XlsxFile(final File file,
+                        final List<String> columns,
+                        final int[] widths,
+                        final int dupColumn) throws IllegalArgumentException {
+            if (file.isDirectory()) {
+                throw new IllegalArgumentException(file.getAbsolutePath());
+            }
+            mColumnCount = columns.size();
+            mDupColumn = dupColumn;
+            try {
+                mOut = new FileOutputStream(file);
+            } catch (final IOException error) {
+                throw new IllegalArgumentException(error);
+            }
+            mZip = new ZipOutputStream(mOut);
+            mWriter = new BufferedWriter(new OutputStreamWriter(mZip, StandardCharsets.UTF_8));
+            try {
+                writeEntry("[Content_Types].xml", CONTENT_TYPES);
+                writeEntry("_rels/.rels", ROOT_RELS);
+                writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+                writeEntry("xl/styles.xml", STYLES);
+
+                mZip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+                mWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                              + "<worksheet xmlns=\"" + NS_MAIN + "\">"
+                              + "<sheetViews><sheetView workbookViewId=\"0\">"
+                              + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\""
+                              + " state=\"frozen\"/>"
+                              + "</sheetView></sheetViews><cols>");
+                for (int i = 0; i < widths.length; i++) {
+                    mWriter.write(String.format("<col min=\"%d\" max=\"%d\" width=\"%d\""
+                                                + " customWidth=\"1\"/>",
+                                                i + 1,
+                                                i + 1,
+                                                Math.min(widths[i], MAX_COLUMN_WIDTH) + 2));
+                }
+                mWriter.write("</cols><sheetData>");
+                writeRow(columns, 1);
+            } catch (final IOException error) {
+                abort();
+                throw new IllegalArgumentException(error);
+            }
+        }
+
+        /**
+         * Write one row.
+         *
+         * @param fields
+         *            list of strings, integers are written as numbers
+         * @throws IllegalArgumentException
+         *             any IOException
+         */
+        public void writeRow(final List<String> fields) throws IllegalArgumentException {
+            try {
+                writeRow(fields, 0);
+            } catch (final IOException error) {
+                throw new IllegalArgumentException(error);
+            }
+        }
+
+        /**
+         * Finish the sheet and write the shared strings and workbook.
+         *
+         * @throws IllegalArgumentException
+         *             any IOException
+         */
+        @Override
+        public void close() throws IllegalArgumentException {
+            try {
+                final String range = "A1:" + cellName(mColumnCount - 1, mRowCount);
+                mWriter.write("</sheetData>");
+                mWriter.write("<autoFilter ref=\"" + range + "\"/>");
+                if (mDupColumn >= 0 && mRowCount > 1) {
+                    mWriter.write("<conditionalFormatting sqref=\"A2:"
+                                  + cellName(mColumnCount - 1, mRowCount)
+                                  + "\"><cfRule type=\"expression\" dxfId=\"0\" priority=\"1\">"
+                                  + "<formula>$"
+                                  + columnName(mDupColumn)
+                                  + "2=\"" + escape("✔") + "\"</formula></cfRule>"
+                                  + "</conditionalFormatting>");
+                }
+                mWriter.write("</worksheet>");
+                mWriter.flush();
+                mZip.closeEntry();
+
+                mZip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+                mWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                              + "<sst xmlns=\"" + NS_MAIN + "\" count=\"" + mSharedCount
+                              + "\" uniqueCount=\"" + mSharedOrder.size() + "\">");
+                for (final String string : mSharedOrder) {
+                    mWriter.write("<si>" + text(string) + "</si>");
+                }
+                mWriter.write("</sst>");
+                mWriter.flush();
+                mZip.closeEntry();
+
+                writeEntry("xl/workbook.xml",
+                           "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                                              + "<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\""
+                                              + NS_REL + "\"><sheets><sheet name=\""
+                                              + SHEET_NAME
+                                              + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>"
+                                              + "<definedNames><definedName"
+                                              + " name=\"_xlnm._FilterDatabase\" localSheetId=\"0\""
+                                              + " hidden=\"1\">'" + SHEET_NAME + "'!"
+                                              + absolute(range)
+                                              + "</definedName></definedNames></workbook>");
+                mWriter.close();
+            } catch (final IOException error) {
+                abort();
+                throw new IllegalArgumentException(error);
+            }
+        }
+
+        /**
+         * Close the file after a failed write, the partial file is left as is.
+         */
+        private void abort() {
+            try {
+                mZip.close();
+            } catch (final IOException error) {
+                // ignore, already failing
+            }
+            try {
+                mOut.close(); // not closed by mZip if finishing the zip failed
+            } catch (final IOException error) {
+                // ignore
+            }
+        }
+
+        private void writeRow(final List<String> fields, final int style) throws IOException {
+            mRowCount++;
+            mWriter.write("<row r=\"" + mRowCount + "\">");
+            for (int i = 0; i < fields.size() && i < mColumnCount; i++) {
+                final String field = fields.get(i);
+                if (field.isEmpty()) {
+                    continue;
+                }
+                final String cell = cellName(i, mRowCount);
+                final String styleAttribute = style == 0 ? "" : " s=\"" + style + "\"";
+                if (style == 0 && field.matches("\\d{1,15}")) {
+                    mWriter.write("<c r=\"" + cell + "\"><v>" + field + "</v></c>");
+                } else {
+                    final int index = sharedString(field);
+                    if (index >= 0) {
+                        mWriter.write("<c r=\"" + cell + "\"" + styleAttribute + " t=\"s\"><v>"
+                                      + index + "</v></c>");
+                    } else {
+                        mWriter.write("<c r=\"" + cell + "\"" + styleAttribute
+                                      + " t=\"inlineStr\"><is>" + text(field) + "</is></c>");
+                    }
+                }
+            }
+            mWriter.write("</row>");
+        }
+
+        private int sharedString(final String string) {
+            Integer index = mSharedStrings.get(string);
+            if (index == null) {
+                if (mSharedOrder.size() >= MAX_SHARED_STRINGS) {
+                    return -1;
+                }
+                index = mSharedOrder.size();
+                mSharedStrings.put(string, index);
+                mSharedOrder.add(string);
+            }
+            mSharedCount++;
+            return index;
+        }
+
+        private void writeEntry(final String name, final String content) throws IOException {
+            mZip.putNextEntry(new ZipEntry(name));
+            mWriter.write(content);
+            mWriter.flush();
+            mZip.closeEntry();
+        }
+
+        private static String text(final String string) {
+            final String escaped = escape(string);
+            return string.isBlank() || !string.equals(string.strip())
+                    ? "<t xml:space=\"preserve\">" + escaped + "</t>"
+                    : "<t>" + escaped + "</t>";
+        }
+
+        private static String escape(final String string) {
+            final StringBuilder result = new StringBuilder(string.length());
+            for (int i = 0; i < string.length(); i++) {
+                final char c = string.charAt(i);
+                switch (c) {
+                    case '&':
+                        result.append("&amp;");
+                        break;
+                    case '<':
+                        result.append("&lt;");
+                        break;
+                    case '>':
+                        result.append("&gt;");
+                        break;
+                    case '"':
+                        result.append("&quot;");
+                        break;
+                    default:
+                        if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                            result.append(c); // other control characters are not valid XML
+                        }
+                }
+            }
+            return result.toString();
+        }
+
+        private static String cellName(final int column, final int row) {
+            return columnName(column) + row;
+        }
+
+        private static String columnName(final int column) {
+            final StringBuilder result = new StringBuilder();
+            for (int i = column + 1; i > 0; i = (i - 1) / 26) {
+                result.insert(0, (char) ('A' + (i - 1) % 26));
+            }
+            return result.toString();
+        }
+
+        private static String absolute(final String range) {
+            return range.replaceAll("([A-Z]+)(\\d+)", "\\$$1\\$$2");
+        }
+
+        private static final String NS_MAIN       = //
+                "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+        private static final String NS_REL        = //
+                "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+        private static final String NS_PACKAGE_REL = //
+                "http://schemas.openxmlformats.org/package/2006/relationships";
+        private static final String CONTENT_TYPES = //
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\""
+                + " ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/"
+                + "vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/"
+                + "vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                + "<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/"
+                + "vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/"
+                + "vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>"
+                + "</Types>";
+        private static final String ROOT_RELS     = //
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"" + NS_PACKAGE_REL + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\""
+                + " Target=\"xl/workbook.xml\"/></Relationships>";
+        private static final String WORKBOOK_RELS = //
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"" + NS_PACKAGE_REL + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/worksheet\""
+                + " Target=\"worksheets/sheet1.xml\"/>"
+                + "<Relationship Id=\"rId2\" Type=\"" + NS_REL + "/sharedStrings\""
+                + " Target=\"sharedStrings.xml\"/>"
+                + "<Relationship Id=\"rId3\" Type=\"" + NS_REL + "/styles\""
+                + " Target=\"styles.xml\"/></Relationships>";
+        private static final String STYLES        = //
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<styleSheet xmlns=\"" + NS_MAIN + "\">"
+                + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+                + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+                + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/>"
+                + "</border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\""
+                + " borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\""
+                + " xfId=\"0\"/><xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\""
+                + " xfId=\"0\" applyFont=\"1\"/></cellXfs>"
+                + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/>"
+                + "</cellStyles>"
+                + "<dxfs count=\"1\"><dxf><font><color rgb=\"FF9C0006\"/></font><fill>"
+                + "<patternFill><bgColor rgb=\"FFFFC7CE\"/></patternFill></fill></dxf></dxfs>"
+                + "</styleSheet>";
+    }
+
+    /**
+     * Resolves action map keys for one component, see getActionLookup().
+     */
+    private static class ActionLookup {
+
+        private final ActionMap           mActionMap;
+        private final Set<Object>         mOwnKeys;
+        private final Map<Object, Action> mShared;
+
+        public ActionLookup(final ActionMap actionMap,
+                            final Set<Object> ownKeys,
+                            final Map<Object, Action> shared) {
+            mActionMap = actionMap;
+            mOwnKeys = ownKeys;
+            mShared = shared;
+        }
+
+        /**
+         * @param actionMapKey
+         *            key from an input map
+         * @return action or null if none
+         */
+        public Action get(final Object actionMapKey) {
+            if (actionMapKey == null) {
+                return null;
+            }
+            return mOwnKeys.contains(actionMapKey) || !mShared.containsKey(actionMapKey)
+                    ? mActionMap.get(actionMapKey)
+                    : mShared.get(actionMapKey);
+        }
+    }
+
     /**
      * Display the results in a JTable. Public so that report Table() can return the JTable for
      * additional settings.
@@ -586,10 +1545,12 @@ public class KeyReporter {
 
         private static final long serialVersionUID = 1L;
 
-        public TableFrame(final List<AbstractKey> list, final Dimension frameSize) {
+        public TableFrame(final List<String> columns,
+                          final List<List<String>> rows,
+                          final Dimension frameSize) {
             super("Key Usage");
             getContentPane().setLayout(new BorderLayout());
-            getContentPane().add(new TablePanel(list), BorderLayout.CENTER);
+            getContentPane().add(new TablePanel(columns, rows), BorderLayout.CENTER);
             setSize(frameSize);
             setLocationRelativeTo(null);
             setVisible(true);
@@ -602,18 +1563,14 @@ public class KeyReporter {
 
         private static final long serialVersionUID = 1L;
 
-        public TablePanel(final List<AbstractKey> list) {
-            final List<String> columns = new ArrayList<String>();
+        public TablePanel(final List<String> columns, final List<List<String>> rows) {
             final List<String[]> values = new ArrayList<String[]>();
 
-            columns.addAll(sColumnTitles);
-            list.stream().sorted(AbstractKey.SORTED).forEach(e -> {
-                final String[] data = e.toRow();
+            rows.forEach(data -> {
                 final String[] row = new String[columns.size()];
                 for (int i = 0; i < row.length; i++) {
-                    row[i] = "";
+                    row[i] = i < data.size() ? data.get(i) : "";
                 }
-                System.arraycopy(data, 0, row, 0, data.length);
                 values.add(row);
             });
 
@@ -2,10 +2,19 @@ package com.billsdesk.github.keyreporter;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.GraphicsEnvironment;
 import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
@@ -21,8 +30,21 @@ import javax.swing.JMenuItem;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextField;
 import javax.swing.JTextPane;
 import javax.swing.KeyStroke;
+import javax.swing.UIManager;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.JTextComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -47,9 +69,14 @@ public class KeyReporterTest {
         try {
             final File txt = File.createTempFile("Report", ".txt");
             final File csv = File.createTempFile("Report", ".csv");
-            KeyReporter.getInstance().report(txt).reportCsv(csv);
+            final File xlsx = File.createTempFile("Report", ".xlsx");
+            KeyReporter.getInstance().report(txt).reportCsv(csv).reportXlsx(xlsx);
             System.out.println(txt.getAbsolutePath());
             System.out.println(csv.getAbsolutePath());
+            System.out.println(xlsx.getAbsolutePath());
+            if (GraphicsEnvironment.isHeadless()) {
+                return;
+            }
             final KeyReporter.TableFrame frame = KeyReporter.getInstance()
                                                             .reportTable(new Dimension(1000, 600));
             while (frame.isVisible()) {
@@ -88,6 +115,31 @@ public class KeyReporterTest {
         KeyReporter.getInstance().registerMenuItem(junk);
     }
 
+    @Test
+    public void assertions() throws IOException {
+        final JMenuItem save = new JMenuItem("Save");
+        save.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK));
+        final JMenuItem saveAs = new JMenuItem("Save As...");
+        saveAs.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK));
+        final JTextPane text = new JTextPane();
+        final KeyReporter reporter = new KeyReporter().registerMenuItem(save)
+                                                      .registerComponent(text);
+        final File baseline = File.createTempFile("Baseline", ".snapshot");
+        reporter.reportSnapshot(baseline);
+
+        KeyAssertions.of(reporter)
+                     .assertNoConflicts(JMenuItem.class)
+                     .assertBound(save.getAccelerator(), "Save")
+                     .assertNotBound(KeyStroke.getKeyStroke(KeyEvent.VK_F12, 0))
+                     .assertUnchanged(baseline);
+
+        reporter.registerMenuItem(saveAs);
+        assertThrows(AssertionError.class,
+                     () -> KeyAssertions.of(reporter).assertNoConflicts(JMenuItem.class));
+        assertThrows(AssertionError.class,
+                     () -> KeyAssertions.of(reporter).assertUnchanged(baseline));
+    }
+
     @Test
     public void inputMap() {
         final JTextPane text = new JTextPane();
@@ -113,8 +165,51 @@ public class KeyReporterTest {
         KeyReporter.getInstance().registerComponent(text);
     }
 
+    @Test
+    public void actionMap() throws IOException {
+        final JTextPane text = new JTextPane();
+        text.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_F9, 0), "missing");
+        // the Look and Feel's paste key stroke, ctrl V or meta V on MacOS
+        final InputMap focused = text.getInputMap();
+        final KeyStroke paste = Arrays.stream(focused.allKeys())
+                                      .filter(k -> "paste-from-clipboard".equals(focused.get(k)))
+                                      .findFirst()
+                                      .orElse(null);
+        assumeTrue(paste != null, "Look and Feel without a paste key stroke");
+        text.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(paste, "window-paste");
+        text.getActionMap().put("window-paste", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public void actionPerformed(final ActionEvent event) {
+            }
+        });
+        final File report = File.createTempFile("Actions", ".txt");
+        new KeyReporter().registerComponent(text).report(report);
+        final List<String> lines = Files.readAllLines(report.toPath());
+        assertTrue(lines.stream()
+                        .anyMatch(line -> line.contains("\tmissing\t")
+                                          && line.endsWith("Orphaned")));
+        assertTrue(lines.stream()
+                        .anyMatch(line -> line.contains("\twindow-paste\t")
+                                          && line.endsWith("Shadowed when focused")));
+        assertTrue(lines.stream()
+                        .anyMatch(line -> line.contains("\tpaste-from-clipboard\t")
+                                          && line.contains("PasteAction")));
+
+        // text components have per instance ActionMaps below the shared one
+        final KeyReporter reporter = new KeyReporter().registerComponent(new JTextPane())
+                                                      .registerComponent(new JTextField());
+        final int shared = reporter.getSharedActionMapCount();
+        for (int i = 0; i < 4; i++) {
+            reporter.registerComponent(new JTextPane()).registerComponent(new JTextField());
+        }
+        assertEquals(shared, reporter.getSharedActionMapCount());
+        assertTrue(shared <= 2);
+    }
+
     @Test
     public void jframe() {
+        assumeFalse(GraphicsEnvironment.isHeadless(), "JFrame needs a display");
         final JMenuBar menuBar = new JMenuBar();
         final JMenuItem newItem = new JMenuItem("New");
         setAccelerator(newItem, KeyEvent.VK_N, 0);
@@ -145,6 +240,250 @@ public class KeyReporterTest {
         KeyReporter.getInstance().registerJFrame(frame);
     }
 
+    @Test
+    public void merge() throws IOException {
+        final File dir = Files.createTempDirectory("Merge").toFile();
+        final File app = new File(dir, "App.snapshot");
+        final File plugin = new File(dir, "Plugin.txt");
+        final File merged = new File(dir, "Merged.txt");
+        final KeyStroke open = KeyStroke.getKeyStroke(KeyEvent.VK_O, InputEvent.CTRL_DOWN_MASK);
+        final KeyStroke save = KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK);
+        final KeyStroke zoom = KeyStroke.getKeyStroke(KeyEvent.VK_F2, 0);
+        new KeyReporter().registerMenuItem(menuItem("Open", open))
+                         .registerMenuItem(menuItem("Save", save))
+                         .reportSnapshot(app);
+        new KeyReporter().registerMenuItem(menuItem("Export", save))
+                         .registerMenuItem(menuItem("Zoom", zoom))
+                         .report(plugin);
+
+        final KeyReportMerger merger = new KeyReportMerger().add(app).add(plugin).merge(merged);
+        assertEquals(4, merger.getRowCount());
+        assertEquals(2, merger.getDuplicateCount());
+        assertEquals(1, merger.getCrossSourceCount());
+        final List<String> lines = Files.readAllLines(merged.toPath());
+        assertEquals(5, lines.size());
+        // the key stroke column is dropped, its text differs on MacOS
+        assertEquals(List.of("App\tJMenuItem\t \tOpen\t\t",
+                             "Plugin\tJMenuItem\t✔\tExport\t\tApp",
+                             "App\tJMenuItem\t✔\tSave\t\tPlugin",
+                             "Plugin\tJMenuItem\t \tZoom\t\t"),
+                     lines.subList(1, lines.size())
+                          .stream()
+                          .map(line -> line.replaceFirst("^(([^\t]*\t){3})[^\t]*\t", "$1"))
+                          .collect(Collectors.toList()));
+
+        final File unsorted = new File(dir, "Unsorted.txt");
+        Files.write(unsorted.toPath(),
+                    List.of("JMenuItem\t \tctrl S\tSave\t", "JMenuItem\t \tctrl O\tOpen\t"),
+                    StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class,
+                     () -> new KeyReportMerger().add(app).add(unsorted).merge(merged));
+
+        final File damaged = new File(dir, "Damaged.txt"); // fails while opening the input
+        Files.write(damaged.toPath(), List.of("JMenuItem\t \tnot a key\tOpen\t"));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new KeyReportMerger().add(app).add(damaged).merge(merged));
+    }
+
+    @Test
+    public void policy() throws IOException {
+        final KeyPolicy policy = KeyPolicy.load(KeyPolicy.class, "reserved.policy", "windows");
+        assertEquals(KeyPolicy.Level.FORBIDDEN,
+                     policy.match(KeyStroke.getKeyStroke("ctrl alt pressed DELETE")).getLevel());
+        assertEquals(KeyPolicy.Level.RESERVED,
+                     policy.match(KeyStroke.getKeyStroke("shift alt pressed TAB")).getLevel());
+        assertEquals(KeyPolicy.Level.RESERVED,
+                     policy.match(KeyStroke.getKeyStroke("ctrl pressed KANJI")).getLevel());
+        assertNull(policy.match(KeyStroke.getKeyStroke("meta pressed Q")));
+
+        final File report = File.createTempFile("Policy", ".txt");
+        final KeyStroke close = KeyStroke.getKeyStroke(KeyEvent.VK_F4, InputEvent.ALT_DOWN_MASK);
+        final KeyReporter reporter = new KeyReporter().setPolicy(policy)
+                                                      .registerMenuItem(menuItem("Close", close))
+                                                      .report(report);
+        // class, key stroke, action, and rule; key stroke text is per platform
+        final List<String> violations = reporter.getPolicyViolations();
+        assertEquals(1, violations.size());
+        assertEquals(List.of("JMenuItem", "Close", "Reserved: Close window"),
+                     Arrays.asList(violations.get(0).replaceFirst("\t[^\t]*", "").split("\t")));
+        // Policy is the last column when usage is not monitored
+        final String line = Files.readAllLines(report.toPath()).get(0);
+        assertTrue(line.endsWith("\tReserved: Close window"));
+    }
+
+    @Test
+    public void scanCache() throws IOException {
+        final File file = File.createTempFile("Keys", ".cache");
+        final File plain = File.createTempFile("Plain", ".snapshot");
+        final File cached = File.createTempFile("Cached", ".snapshot");
+        final JTextPane text = new JTextPane();
+        text.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_B, 0), "bold");
+        final JTextPane notes = new JTextPane(); // bindings in its own Keymap
+        notes.setKeymap(JTextComponent.addKeymap(null, notes.getKeymap()));
+        notes.getKeymap()
+             .addActionForKeyStroke(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0),
+                                    new DefaultEditorKit.BeepAction());
+        final JButton one = new JButton("One"); // mnemonics are in per button input maps
+        one.setMnemonic(KeyEvent.VK_O);
+        final JButton two = new JButton("Two");
+        two.setMnemonic(KeyEvent.VK_T);
+
+        new KeyReporter().registerComponent(text)
+                         .registerComponent(notes)
+                         .registerComponent(one)
+                         .registerComponent(two)
+                         .reportSnapshot(plain);
+        final KeyScanCache cache = new KeyScanCache(file, "1");
+        new KeyReporter().setScanCache(cache).registerComponent(text).registerComponent(one);
+        cache.save();
+        new KeyReporter().setScanCache(new KeyScanCache(file, "1"))
+                         .registerComponent(text)
+                         .registerComponent(notes)
+                         .registerComponent(one)
+                         .registerComponent(two)
+                         .reportSnapshot(cached);
+        assertEquals(Files.readAllLines(plain.toPath()), Files.readAllLines(cached.toPath()));
+        assertTrue(Files.readAllLines(cached.toPath())
+                        .stream()
+                        .anyMatch(line -> line.contains("alt pressed T")));
+        assertEquals(0, new KeyScanCache(file, "2").size());
+    }
+
+    @Test
+    public void scanCacheChanged() throws IOException {
+        final File file = File.createTempFile("Keys", ".cache");
+        final JTextField field = new JTextField();
+        final InputMap shared = (InputMap) UIManager.get("TextField.focusInputMap");
+        assumeTrue(shared != null && shared.keys() != null,
+                   "Look and Feel without TextField.focusInputMap");
+        final KeyScanCache cache = new KeyScanCache(file, "1");
+        new KeyReporter().setScanCache(cache).registerComponent(field);
+        cache.save();
+
+        final KeyStroke added = KeyStroke.getKeyStroke(KeyEvent.VK_F12, InputEvent.CTRL_DOWN_MASK);
+        shared.put(added, "user-keymap-action"); // as an application does at startup
+        try {
+            assertEquals(new KeyReporter().registerComponent(field).getSnapshotLines(),
+                         new KeyReporter().setScanCache(new KeyScanCache(file, "1"))
+                                          .registerComponent(field)
+                                          .getSnapshotLines());
+        } finally {
+            shared.remove(added);
+        }
+
+        final KeyStroke removed = shared.keys()[0];
+        final Object action = shared.get(removed);
+        shared.remove(removed);
+        try {
+            assertEquals(new KeyReporter().registerComponent(field).getSnapshotLines(),
+                         new KeyReporter().setScanCache(cache)
+                                          .registerComponent(field)
+                                          .getSnapshotLines());
+        } finally {
+            shared.put(removed, action);
+        }
+    }
+
+    @Test
+    public void scanCacheKeys() throws IOException {
+        final File file = File.createTempFile("Keys", ".cache");
+        final File plain = File.createTempFile("Plain", ".txt");
+        final File cached = File.createTempFile("Cached", ".txt");
+        final KeyStroke key = KeyStroke.getKeyStroke(KeyEvent.VK_F11, 0);
+        final Integer actionMapKey = 11; // the cache only has the text "11"
+        final JTextField field = new JTextField();
+        field.getActionMap().put(actionMapKey, new DefaultEditorKit.BeepAction());
+        final InputMap shared = (InputMap) UIManager.get("TextField.focusInputMap");
+        assumeTrue(shared != null, "Look and Feel without TextField.focusInputMap");
+        shared.put(key, actionMapKey);
+        try {
+            new KeyReporter().registerComponent(field).report(plain);
+            new KeyReporter().setScanCache(new KeyScanCache(file, "1"))
+                             .registerComponent(field)
+                             .report(cached);
+        } finally {
+            shared.remove(key);
+        }
+        final List<String> lines = Files.readAllLines(cached.toPath());
+        assertEquals(Files.readAllLines(plain.toPath()), lines);
+        assertTrue(lines.stream()
+                        .anyMatch(line -> line.contains("\t11\t") && line.contains("BeepAction")));
+    }
+
+    @Test
+    public void usage() throws IOException {
+        final KeyStroke save = KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK);
+        final KeyStroke open = KeyStroke.getKeyStroke(KeyEvent.VK_O, InputEvent.CTRL_DOWN_MASK);
+        final KeyUsageMonitor monitor = new KeyUsageMonitor(List.of(save));
+        final JTextPane text = new JTextPane();
+        monitor.record(new KeyEvent(text,
+                                    KeyEvent.KEY_PRESSED,
+                                    1000,
+                                    InputEvent.CTRL_DOWN_MASK,
+                                    KeyEvent.VK_S,
+                                    's'));
+        monitor.record(new KeyEvent(text, KeyEvent.KEY_PRESSED, 2000, 0, KeyEvent.VK_S, 's'));
+        assertEquals(1, monitor.getCount(save));
+        assertEquals(1000, monitor.getLastUsed(save));
+        assertEquals(0, monitor.getCount(KeyStroke.getKeyStroke(KeyEvent.VK_S, 0)));
+
+        final File report = File.createTempFile("Usage", ".txt");
+        final KeyReporter reporter = new KeyReporter().registerMenuItem(menuItem("Save", save))
+                                                      .registerMenuItem(menuItem("Open", open))
+                                                      .monitorUsage();
+        try {
+            reporter.getUsageMonitor().dispatchKeyEvent(new KeyEvent(text,
+                                                                     KeyEvent.KEY_PRESSED,
+                                                                     1000,
+                                                                     InputEvent.CTRL_DOWN_MASK,
+                                                                     KeyEvent.VK_S,
+                                                                     's'));
+        } finally {
+            reporter.stopMonitoringUsage();
+        }
+        reporter.report(report);
+        // Uses and Last Used are the last columns
+        final List<String[]> rows = Files.readAllLines(report.toPath())
+                                         .stream()
+                                         .map(line -> line.split("\t", -1))
+                                         .collect(Collectors.toList());
+        final String[] saveRow = rows.stream().filter(r -> r[3].equals("Save")).findFirst().get();
+        assertEquals("1", saveRow[saveRow.length - 2]);
+        assertFalse(saveRow[saveRow.length - 1].isEmpty());
+        final String[] openRow = rows.stream().filter(r -> r[3].equals("Open")).findFirst().get();
+        assertEquals("0", openRow[openRow.length - 2]);
+        assertEquals("", openRow[openRow.length - 1]);
+    }
+
+    @Test
+    public void xlsx() throws IOException {
+        final KeyStroke save = KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK);
+        final File file = File.createTempFile("Report", ".xlsx");
+        new KeyReporter().registerMenuItem(menuItem("Save", save))
+                         .registerMenuItem(menuItem("Save As", save))
+                         .registerMenuItem(menuItem("Zoom", KeyStroke.getKeyStroke("F2")))
+                         .reportXlsx(file);
+        try (ZipFile zip = new ZipFile(file)) {
+            assertNotNull(zip.getEntry("xl/sharedStrings.xml"));
+            final ZipEntry entry = zip.getEntry("xl/worksheets/sheet1.xml");
+            assertNotNull(entry);
+            final String sheet = new String(zip.getInputStream(entry).readAllBytes(),
+                                            StandardCharsets.UTF_8);
+            assertTrue(sheet.contains("<pane ySplit=\"1\" topLeftCell=\"A2\""
+                                      + " activePane=\"bottomLeft\" state=\"frozen\"/>"));
+            // header and 3 rows, 8 columns: the base columns and Action Class, Enabled, Status
+            assertTrue(sheet.contains("<autoFilter ref=\"A1:H4\"/>"));
+            assertTrue(sheet.contains("<conditionalFormatting sqref=\"A2:H4\">"));
+            assertTrue(sheet.contains("<formula>$B2=\"✔\"</formula>"));
+        }
+    }
+
+    private static JMenuItem menuItem(final String text, final KeyStroke accelerator) {
+        final JMenuItem item = new JMenuItem(text);
+        item.setAccelerator(accelerator);
+        return item;
+    }
+
     private void setAccelerator(final JMenuItem item, final int key, final int modifier) {
         if (key != 0) {
             final int tempModifer = (System.getProperty("os.name")
@@ -0,0 +1,281 @@
+package com.billsdesk.github.keyreporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import javax.swing.InputMap;
+import javax.swing.KeyStroke;
+import javax.swing.LookAndFeel;
+import javax.swing.UIDefaults;
+import javax.swing.UIManager;
+
+/**
+ * Remember between runs the key strokes components get from the Look and Feel. Most bindings come
+ * from an InputMap in the UIManager defaults, such as TextPane.focusInputMap, that is shared by
+ * every component using it and sits at the top of the component's InputMap parent chain. Once one
+ * is cached only the levels below it need to be read. Those levels belong to the instance: the
+ * component's own bindings, text Keymaps, and the mnemonics a UI adds for WHEN_IN_FOCUSED_WINDOW.
+ * <p>
+ * The cache is for one Look and Feel, application version, and Java version. If any of them change
+ * the cache is emptied and filled again. A map whose number of bindings changed, for example from
+ * a user keymap loaded at startup, is read again. It is not thread safe, use it on the Event
+ * Dispatch Thread like the components it scans.
+ * </p>
+ * <b>Example</b>
+ * <pre>{@code
+ *      final KeyScanCache cache = new KeyScanCache(new File(settings, "keys.cache"), "2.1");
+ *      KeyReporter.getInstance()
+ *          .setScanCache(cache)
+ *          .registerJFrame(frame);
+ *      cache.save();
+ * }</pre>
+ */
+public class KeyScanCache {
+
+    private static final String KEY_PROPERTY = "KeyScanCache.key";
+
+    private final File                       mFile;
+    private final String                     mAppVersion;
+    private final Map<String, List<Binding>> mBindings     = new HashMap<>();
+    private final Map<String, String>        mFingerprints = new HashMap<>();
+    private final Map<InputMap, String>      mDefaults     = new IdentityHashMap<>();
+    private String                           mKey;
+    private boolean                          mChanged;
+
+    /**
+     * A key stroke and the action map key it is bound to.
+     */
+    static class Binding {
+
+        private final KeyStroke mKeyStroke;
+        private final String    mAction;
+
+        Binding(final KeyStroke keyStroke, final String action) {
+            mKeyStroke = keyStroke;
+            mAction = action;
+        }
+
+        public KeyStroke getKeyStroke() {
+            return mKeyStroke;
+        }
+
+        public String getAction() {
+            return mAction;
+        }
+    }
+
+    /**
+     * Create a cache and load it from file if the file exists and was saved for the current Look
+     * and Feel and application version.
+     *
+     * @param file
+     *            cache file, need not exist
+     * @param appVersion
+     *            version of the application, a new version empties the cache
+     */
+    public KeyScanCache(final File file, final String appVersion) {
+        mFile = file;
+        mAppVersion = appVersion;
+        mKey = getCurrentKey();
+        if (file.isFile()) {
+            final Properties properties = new Properties();
+            try (InputStream stream = Files.newInputStream(file.toPath())) {
+                properties.load(stream);
+            } catch (final IOException error) {
+                // unreadable, start empty
+            }
+            if (mKey.equals(properties.getProperty(KEY_PROPERTY))) {
+                properties.stringPropertyNames()
+                          .stream()
+                          .filter(name -> !name.equals(KEY_PROPERTY))
+                          .forEach(name -> {
+                              final String value = properties.getProperty(name);
+                              final int end = value.indexOf('\n');
+                              mFingerprints.put(name, end < 0 ? value : value.substring(0, end));
+                              mBindings.put(name, parse(value));
+                          });
+            } else {
+                mChanged = true;
+            }
+        }
+    }
+
+    /**
+     * Write the cache if anything was added or it was emptied.
+     *
+     * @return this
+     * @throws IllegalArgumentException
+     *             any IOException
+     */
+    public KeyScanCache save() throws IllegalArgumentException {
+        if (mChanged) {
+            final Properties properties = new Properties();
+            properties.setProperty(KEY_PROPERTY, mKey);
+            for (final Map.Entry<String, List<Binding>> entry : mBindings.entrySet()) {
+                final String name = entry.getKey();
+                properties.setProperty(name, format(mFingerprints.get(name), entry.getValue()));
+            }
+            try (OutputStream stream = Files.newOutputStream(mFile.toPath())) {
+                properties.store(stream, "KeyReporter scan cache");
+            } catch (final IOException error) {
+                throw new IllegalArgumentException(error);
+            }
+            mChanged = false;
+        }
+        return this;
+    }
+
+    /**
+     * Empty the cache.
+     *
+     * @return this
+     */
+    public KeyScanCache clear() {
+        mBindings.clear();
+        mFingerprints.clear();
+        mChanged = true;
+        return this;
+    }
+
+    /**
+     * @return number of Look and Feel input maps cached
+     */
+    public int size() {
+        return mBindings.size();
+    }
+
+    /**
+     * Find the input map in a parent chain that comes from the UIManager defaults. Only it is
+     * shared between components, the levels below it must be read for each component.
+     *
+     * @param inputMap
+     *            input map of a component
+     * @return the shared input map or null if the chain has none
+     */
+    InputMap findShared(final InputMap inputMap) {
+        checkKey();
+        if (mDefaults.isEmpty()) {
+            final UIDefaults defaults = UIManager.getDefaults();
+            for (final Object name : Collections.list(defaults.keys())) {
+                if (name instanceof String && ((String) name).contains("InputMap")) {
+                    final Object value = defaults.get(name);
+                    if (value instanceof InputMap) {
+                        mDefaults.put((InputMap) value, (String) name);
+                    }
+                }
+            }
+        }
+        for (InputMap map = inputMap; map != null; map = map.getParent()) {
+            if (mDefaults.containsKey(map)) {
+                return map;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the bindings of a shared input map, reading them the first time it is seen or again if
+     * the application changed the map since it was cached.
+     *
+     * @param shared
+     *            input map returned by {@link #findShared(InputMap)}
+     * @return all bindings of the shared input map and its parents
+     */
+    List<Binding> getSharedBindings(final InputMap shared) {
+        final String name = mDefaults.get(shared);
+        final String fingerprint = fingerprint(shared);
+        List<Binding> result = mBindings.get(name);
+        if (result == null || !fingerprint.equals(mFingerprints.get(name))) {
+            result = scan(shared);
+            mBindings.put(name, result);
+            mFingerprints.put(name, fingerprint);
+            mChanged = true;
+        }
+        return result;
+    }
+
+    /**
+     * Number of bindings in each level of the chain, cheap to compute and changed by any binding
+     * an application adds or removes, for example from a user keymap at startup. A key stroke
+     * bound again to another action is not seen, registerComponent() reads the action map key of
+     * each cached key stroke from the live input map.
+     */
+    private static String fingerprint(final InputMap inputMap) {
+        final StringBuilder result = new StringBuilder();
+        for (InputMap map = inputMap; map != null; map = map.getParent()) {
+            result.append(map.size()).append(' ');
+        }
+        return result.toString().trim();
+    }
+
+    private void checkKey() {
+        final String key = getCurrentKey();
+        if (!key.equals(mKey)) { // Look and Feel changed while running
+            mKey = key;
+            mDefaults.clear();
+            clear();
+        }
+    }
+
+    private String getCurrentKey() {
+        final LookAndFeel lookAndFeel = UIManager.getLookAndFeel();
+        return String.join("|",
+                           lookAndFeel == null ? "" : lookAndFeel.getClass().getName(),
+                           mAppVersion,
+                           System.getProperty("java.version"));
+    }
+
+    private static List<Binding> scan(final InputMap inputMap) {
+        final List<Binding> result = new ArrayList<>();
+        final KeyStroke[] keyStrokes = inputMap == null ? null : inputMap.allKeys();
+        if (keyStrokes != null) {
+            for (final KeyStroke keyStroke : keyStrokes) {
+                final Object action = inputMap.get(keyStroke);
+                if (action != null) {
+                    result.add(new Binding(keyStroke, action.toString()));
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * One binding per line: packed key stroke, tab, action. Saved after a line with the
+     * fingerprint.
+     */
+    private static String format(final String fingerprint, final List<Binding> bindings) {
+        final String lines = bindings.stream()
+                                     .map(b -> PackedKeyTable.pack(b.getKeyStroke())
+                                               + "\t"
+                                               + b.getAction().replaceAll("\\t|\\R", " "))
+                                     .collect(Collectors.joining("\n"));
+        return fingerprint + "\n" + lines;
+    }
+
+    private static List<Binding> parse(final String value) {
+        final List<Binding> result = new ArrayList<>();
+        for (final String line : value.split("\n")) {
+            final int tab = line.indexOf('\t');
+            if (tab > 0) {
+                try {
+                    final long packed = Long.parseLong(line.substring(0, tab));
+                    result.add(new Binding(PackedKeyTable.unpack(packed), line.substring(tab + 1)));
+                } catch (final NumberFormatException error) {
+                    // skip damaged line
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
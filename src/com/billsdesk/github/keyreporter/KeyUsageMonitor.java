@@ -0,0 +1,125 @@
+package com.billsdesk.github.keyreporter;
+
+import java.awt.KeyboardFocusManager;
+import java.awt.KeyEventDispatcher;
+import java.awt.event.KeyEvent;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.swing.KeyStroke;
+
+/**
+ * Count how often each registered KeyStroke is actually typed. Installed as a KeyEventDispatcher so
+ * it sees every key event before any component, never consumes them, and adds no allocation to
+ * dispatching: the KeyStroke is looked up by its packed value and counted with a LongAdder.
+ * <p>
+ * <b>Example</b>
+ * </p>
+ * <pre>{@code
+ *      KeyReporter.getInstance()
+ *          .registerJFrame(frame)
+ *          .monitorUsage();
+ *      ...
+ *      KeyReporter.getInstance().reportCsv(file); // now includes Uses and Last Used
+ * }</pre>
+ */
+public class KeyUsageMonitor
+    implements
+        KeyEventDispatcher {
+
+    private final PackedKeyTable  mTable;
+    private final LongAdder[]     mCounts;
+    private final AtomicLongArray mLastUsed;
+
+    /**
+     * Create a monitor for a fixed set of key strokes. KeyStrokes registered later are not counted.
+     *
+     * @param keyStrokes
+     *            key strokes to count, duplicates are counted once
+     */
+    public KeyUsageMonitor(final Collection<KeyStroke> keyStrokes) {
+        mTable = new PackedKeyTable(keyStrokes.size());
+        for (final KeyStroke keyStroke : keyStrokes) {
+            mTable.putIfAbsent(PackedKeyTable.pack(keyStroke), mTable.size());
+        }
+        mCounts = new LongAdder[mTable.size()];
+        for (int i = 0; i < mCounts.length; i++) {
+            mCounts[i] = new LongAdder();
+        }
+        mLastUsed = new AtomicLongArray(mTable.size());
+    }
+
+    /**
+     * Start counting key events for the current KeyboardFocusManager.
+     *
+     * @return this
+     */
+    public KeyUsageMonitor install() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(this);
+        return this;
+    }
+
+    /**
+     * Stop counting. Counts are kept.
+     *
+     * @return this
+     */
+    public KeyUsageMonitor uninstall() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(this);
+        return this;
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(final KeyEvent event) {
+        record(event);
+        return false; // let the event continue on to the components
+    }
+
+    /**
+     * Count a key event if it matches a monitored KeyStroke.
+     *
+     * @param event
+     *            key event
+     */
+    public void record(final KeyEvent event) {
+        final int slot = mTable.get(PackedKeyTable.pack(event));
+        if (slot != PackedKeyTable.NOT_FOUND) {
+            mCounts[slot].increment();
+            mLastUsed.set(slot, event.getWhen());
+        }
+    }
+
+    /**
+     * @param keyStroke
+     *            key stroke
+     * @return number of times used, 0 if never used or not monitored
+     */
+    public long getCount(final KeyStroke keyStroke) {
+        final int slot = mTable.get(PackedKeyTable.pack(keyStroke));
+        return slot == PackedKeyTable.NOT_FOUND ? 0 : mCounts[slot].sum();
+    }
+
+    /**
+     * @param keyStroke
+     *            key stroke
+     * @return time in milliseconds of the last use, 0 if never used or not monitored
+     */
+    public long getLastUsed(final KeyStroke keyStroke) {
+        final int slot = mTable.get(PackedKeyTable.pack(keyStroke));
+        return slot == PackedKeyTable.NOT_FOUND ? 0 : mLastUsed.get(slot);
+    }
+
+    /**
+     * Set all counts and last used times back to 0.
+     *
+     * @return this
+     */
+    public KeyUsageMonitor reset() {
+        for (int i = 0; i < mCounts.length; i++) {
+            mCounts[i].reset();
+            mLastUsed.set(i, 0);
+        }
+        return this;
+    }
+}
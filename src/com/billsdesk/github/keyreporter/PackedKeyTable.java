@@ -0,0 +1,182 @@
+package com.billsdesk.github.keyreporter;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
+
+import javax.swing.KeyStroke;
+
+/**
+ * Open addressing table from a KeyStroke packed into a long to an int slot. Lookups use only
+ * primitives so they can be done while dispatching key events without creating any objects.
+ * <p>
+ * A packed key holds the key code in the high 32 bits, then the key char, the on key release
+ * flag, and the extended modifiers (SHIFT, CTRL, META, ALT, ALT_GRAPH) in the low 32 bits. A
+ * KeyStroke and the KeyEvent that triggers it pack to the same value.
+ * </p>
+ * The table is filled once and then only read, so it is safe to share between threads once
+ * published.
+ */
+final class PackedKeyTable {
+
+    /** Returned by {@link #get(long)} when the key is not in the table. */
+    public static final int    NOT_FOUND      = -1;
+
+    private static final long  EMPTY          = -1L;
+    private static final int   MODIFIERS_MASK = InputEvent.SHIFT_DOWN_MASK
+                                                | InputEvent.CTRL_DOWN_MASK
+                                                | InputEvent.META_DOWN_MASK
+                                                | InputEvent.ALT_DOWN_MASK
+                                                | InputEvent.ALT_GRAPH_DOWN_MASK;
+    private static final int   RELEASE_BIT    = 1 << 15;
+
+    private final long[]       mKeys;
+    private final int[]        mSlots;
+    private final int          mMask;
+    private int                mSize;
+
+    /**
+     * Create a table large enough to hold capacity keys without resizing.
+     *
+     * @param capacity
+     *            maximum number of keys that will be added
+     */
+    public PackedKeyTable(final int capacity) {
+        int length = 16;
+        while (length < capacity * 2) {
+            length <<= 1;
+        }
+        mKeys = new long[length];
+        mSlots = new int[length];
+        mMask = length - 1;
+        Arrays.fill(mKeys, EMPTY);
+    }
+
+    /**
+     * Pack a KeyStroke.
+     *
+     * @param keyStroke
+     *            key stroke
+     * @return packed key
+     */
+    public static long pack(final KeyStroke keyStroke) {
+        return pack(keyStroke.getKeyCode(),
+                    keyStroke.getKeyChar(),
+                    keyStroke.getModifiers(),
+                    keyStroke.isOnKeyRelease());
+    }
+
+    /**
+     * Pack the KeyStroke that a KeyEvent would trigger. Same as
+     * {@code pack(KeyStroke.getKeyStrokeForEvent(event))} without any allocation.
+     *
+     * @param event
+     *            key event
+     * @return packed key
+     */
+    public static long pack(final KeyEvent event) {
+        if (event.getID() == KeyEvent.KEY_TYPED) {
+            return pack(KeyEvent.VK_UNDEFINED, event.getKeyChar(), event.getModifiersEx(), false);
+        }
+        return pack(event.getKeyCode(),
+                    KeyEvent.CHAR_UNDEFINED,
+                    event.getModifiersEx(),
+                    event.getID() == KeyEvent.KEY_RELEASED);
+    }
+
+    /**
+     * Pack the parts of a KeyStroke.
+     *
+     * @param keyCode
+     *            virtual key code
+     * @param keyChar
+     *            character for KEY_TYPED strokes, otherwise CHAR_UNDEFINED
+     * @param modifiers
+     *            modifiers, only the extended (_DOWN_MASK) bits are used
+     * @param onKeyRelease
+     *            true if KEY_RELEASED
+     * @return packed key
+     */
+    public static long pack(final int keyCode,
+                            final char keyChar,
+                            final int modifiers,
+                            final boolean onKeyRelease) {
+        return ((long) keyCode << 32)
+               | ((long) keyChar << 16)
+               | (onKeyRelease ? RELEASE_BIT : 0)
+               | (modifiers & MODIFIERS_MASK);
+    }
+
+    /**
+     * Reverse of pack(KeyStroke).
+     *
+     * @param key
+     *            packed key
+     * @return key stroke
+     */
+    public static KeyStroke unpack(final long key) {
+        final int keyCode = (int) (key >>> 32);
+        final char keyChar = (char) (key >>> 16);
+        final int modifiers = (int) key & MODIFIERS_MASK;
+        if (keyCode == KeyEvent.VK_UNDEFINED && keyChar != KeyEvent.CHAR_UNDEFINED) {
+            return KeyStroke.getKeyStroke(Character.valueOf(keyChar), modifiers);
+        }
+        return KeyStroke.getKeyStroke(keyCode, modifiers, (key & RELEASE_BIT) != 0);
+    }
+
+    /**
+     * Add a key if not already present.
+     *
+     * @param key
+     *            packed key
+     * @param slot
+     *            value returned by get(key), must not be negative
+     * @return slot for the key, the existing slot if the key was already added
+     * @throws IllegalStateException
+     *             table is full
+     */
+    public int putIfAbsent(final long key, final int slot) throws IllegalStateException {
+        int index = indexOf(key);
+        while (mKeys[index] != EMPTY) {
+            if (mKeys[index] == key) {
+                return mSlots[index];
+            }
+            index = (index + 1) & mMask;
+        }
+        if (mSize * 2 >= mKeys.length) {
+            throw new IllegalStateException("PackedKeyTable full: " + mSize);
+        }
+        mKeys[index] = key;
+        mSlots[index] = slot;
+        mSize++;
+        return slot;
+    }
+
+    /**
+     * Find the slot for a key.
+     *
+     * @param key
+     *            packed key
+     * @return slot or NOT_FOUND
+     */
+    public int get(final long key) {
+        int index = indexOf(key);
+        while (mKeys[index] != EMPTY) {
+            if (mKeys[index] == key) {
+                return mSlots[index];
+            }
+            index = (index + 1) & mMask;
+        }
+        return NOT_FOUND;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    private int indexOf(final long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads the key code bits
+        hash ^= hash >>> 32;
+        return (int) hash & mMask;
+    }
+}